@@ -0,0 +1,280 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+// Idle agents with a known location sit in a uniform grid of roughly 1 km cells, so dispatch can
+// search outwards from the customer ring by ring. Agents without a location wait in a FIFO queue.
+// An agent stays in the pool for as long as it has room for another order.
+public class AgentPool {
+    private static final double CELL_DEGREES = 0.01;
+    private static final double KM_PER_DEGREE = Math.toRadians(GeoPoint.EARTH_RADIUS_KM);
+
+    private final ConcurrentLinkedDeque<DeliveryAgent> idleAgents;
+    private final Map<Long, Set<DeliveryAgent>> cells;
+    private final AtomicInteger locatedIdle;
+    private final AtomicInteger available; // member agents with room for another order, kept by the agents
+
+    private record Candidate(DeliveryAgent agent, Set<DeliveryAgent> cell, double km) {
+    }
+
+    public AgentPool() {
+        this.idleAgents = new ConcurrentLinkedDeque<>();
+        this.cells = new ConcurrentHashMap<>();
+        this.locatedIdle = new AtomicInteger();
+        this.available = new AtomicInteger();
+    }
+
+    public void add(DeliveryAgent agent) {
+        if (agent == null) {
+            throw new IllegalArgumentException("Agent cannot be null");
+        }
+        agent.joinPool(this);
+        release(agent);
+    }
+
+    // Hands out the nearest idle agent when the customer's location is known, otherwise the
+    // longest-idle one; either way the agent is already claimed for the order
+    public Optional<DeliveryAgent> acquire(Order order) {
+        var location = order.customer().location();
+        if (location.isPresent()) {
+            var nearest = claimNearest(location.get(), order);
+            if (nearest != null) {
+                return Optional.of(nearest);
+            }
+        }
+        DeliveryAgent agent;
+        while ((agent = idleAgents.pollFirst()) != null) {
+            agent.leavePoolQueue();
+            // Entries go stale when an agent is claimed outside the pool; those are simply dropped
+            if (agent.tryAcceptOrder(order)) {
+                release(agent); // back in line if it can still take more orders
+                return Optional.of(agent);
+            }
+        }
+        for (var cell : cells.values()) {
+            for (DeliveryAgent located : cell) {
+                if (claim(cell, located, order)) {
+                    return Optional.of(located);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Claims one particular agent for the order, as a matcher that already chose it does. Its idle
+    // entry comes out of the grid or queue first and goes back if it still has room afterwards, so
+    // nothing is left behind for dispatchers to trip over. False if the agent is full or works elsewhere.
+    public boolean claim(DeliveryAgent agent, Order order) {
+        if (agent == null) {
+            throw new IllegalArgumentException("Agent cannot be null");
+        }
+        if (!agent.belongsTo(this)) {
+            return false;
+        }
+        synchronized (agent) { // keeps the cell in step with a concurrent relocate()
+            var location = agent.location();
+            var cell = location == null ? null : cells.get(key(location));
+            if (cell != null && cell.remove(agent)) {
+                locatedIdle.decrementAndGet();
+                agent.leavePoolQueue();
+            } else if (idleAgents.remove(agent)) {
+                agent.leavePoolQueue();
+            }
+        }
+        boolean accepted = agent.tryAcceptOrder(order);
+        release(agent); // back in its cell or queue if it can still take more orders
+        return accepted;
+    }
+
+    // The k closest idle agents, nearest first, without claiming any of them
+    public List<DeliveryAgent> nearestIdle(GeoPoint point, int k) {
+        if (point == null || k <= 0) {
+            throw new IllegalArgumentException("Point cannot be null and k must be positive");
+        }
+        var nearest = new ArrayList<DeliveryAgent>(k);
+        visitNearest(point, candidate -> {
+            if (candidate.agent().available()) {
+                nearest.add(candidate.agent());
+            }
+            return nearest.size() == k;
+        });
+        return nearest;
+    }
+
+    // Called by the agent itself whenever it becomes available again
+    void release(DeliveryAgent agent) {
+        if (agent.available() && agent.enterPoolQueue()) {
+            synchronized (agent) { // keeps the cell in step with a concurrent relocate()
+                var location = agent.location();
+                if (location == null) {
+                    idleAgents.offerLast(agent);
+                } else {
+                    cellFor(location).add(agent);
+                    locatedIdle.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    // Called by the agent, holding its own lock, after it moved. An idle agent queued without a
+    // location stays in the FIFO queue until it is next dispatched.
+    void relocate(DeliveryAgent agent, GeoPoint from, GeoPoint to) {
+        if (from == null || key(from) == key(to)) {
+            return;
+        }
+        var cell = cells.get(key(from));
+        if (cell != null && cell.remove(agent)) {
+            cellFor(to).add(agent);
+        }
+    }
+
+    // Takes an agent with no orders out of the pool for good, reserving it first so no dispatcher can
+    // claim it halfway through. False if it is carrying or being given an order.
+    boolean remove(DeliveryAgent agent) {
+        if (!agent.tryReserveIdle()) {
+            return false;
+        }
+        synchronized (agent) {
+            var location = agent.location();
+            var cell = location == null ? null : cells.get(key(location));
+            if (cell != null && cell.remove(agent)) {
+                locatedIdle.decrementAndGet();
+            } else {
+                idleAgents.remove(agent); // queued before it had a location, or already claimed and dropped
+            }
+            agent.leavePool(this);
+        }
+        return true;
+    }
+
+    // Agents, not queue or grid entries: an entry can outlive its agent filling up elsewhere
+    public int idleCount() {
+        return available.get();
+    }
+
+    void agentFilled() {
+        available.decrementAndGet();
+    }
+
+    void agentFreed() {
+        available.incrementAndGet();
+    }
+
+    private DeliveryAgent claimNearest(GeoPoint point, Order order) {
+        var claimed = new DeliveryAgent[1];
+        visitNearest(point, candidate -> {
+            if (claim(candidate.cell(), candidate.agent(), order)) {
+                claimed[0] = candidate.agent();
+                return true;
+            }
+            return false;
+        });
+        return claimed[0];
+    }
+
+    // Removing the grid entry is what decides between racing dispatchers
+    private boolean claim(Set<DeliveryAgent> cell, DeliveryAgent agent, Order order) {
+        if (!cell.remove(agent)) {
+            return false;
+        }
+        locatedIdle.decrementAndGet();
+        agent.leavePoolQueue();
+        if (!agent.tryAcceptOrder(order)) {
+            return false;
+        }
+        release(agent); // stays in its cell if it can still take more orders
+        return true;
+    }
+
+    // Offers idle agents to the visitor in order of distance until it returns true. Each ring is
+    // searched only once everything nearer than it has been offered. When the square searched so far
+    // covers more cells than are in use, the rest of the grid is simply scanned.
+    private void visitNearest(GeoPoint point, Predicate<Candidate> visitor) {
+        if (locatedIdle.get() <= 0) {
+            return;
+        }
+        var candidates = new PriorityQueue<Candidate>(Comparator.comparingDouble(Candidate::km));
+        int row = index(point.latitude());
+        int col = index(point.longitude());
+        for (int ring = 0; ; ring++) {
+            boolean lastRing = (long) (2 * ring + 1) * (2 * ring + 1) >= cells.size();
+            if (lastRing) {
+                addBeyond(candidates, point, row, col, ring - 1);
+            } else {
+                addRing(candidates, point, row, col, ring);
+            }
+            double bound = lastRing ? Double.POSITIVE_INFINITY : ringLowerBoundKm(point, ring + 1);
+            while (!candidates.isEmpty() && candidates.peek().km() <= bound) {
+                if (visitor.test(candidates.poll())) {
+                    return;
+                }
+            }
+            if (lastRing) {
+                return;
+            }
+        }
+    }
+
+    private void addRing(PriorityQueue<Candidate> candidates, GeoPoint point, int row, int col, int ring) {
+        for (int dr = -ring; dr <= ring; dr++) {
+            int step = Math.abs(dr) == ring ? 1 : 2 * ring; // full rows at the edges, two cells in between
+            for (int dc = -ring; dc <= ring; dc += step) {
+                addCell(candidates, point, cells.get(key(row + dr, col + dc)));
+            }
+        }
+    }
+
+    private void addBeyond(PriorityQueue<Candidate> candidates, GeoPoint point, int row, int col, int searched) {
+        for (var entry : cells.entrySet()) {
+            long key = entry.getKey();
+            int cellRow = (int) (key >> 32);
+            int cellCol = (int) key;
+            if (Math.max(Math.abs(cellRow - row), Math.abs(cellCol - col)) > searched) {
+                addCell(candidates, point, entry.getValue());
+            }
+        }
+    }
+
+    private static void addCell(PriorityQueue<Candidate> candidates, GeoPoint point, Set<DeliveryAgent> cell) {
+        if (cell == null) {
+            return;
+        }
+        for (DeliveryAgent agent : cell) {
+            var location = agent.location();
+            if (location != null) {
+                candidates.add(new Candidate(agent, cell, point.distanceKm(location)));
+            }
+        }
+    }
+
+    // Anything in ring r is at least r - 1 whole cells away along one axis; a degree of longitude
+    // is shortest at the ring's far latitude
+    private static double ringLowerBoundKm(GeoPoint point, int ring) {
+        double farLatitude = Math.min(90, Math.abs(point.latitude()) + ring * CELL_DEGREES);
+        return (ring - 1) * CELL_DEGREES * KM_PER_DEGREE * Math.cos(Math.toRadians(farLatitude));
+    }
+
+    private Set<DeliveryAgent> cellFor(GeoPoint location) {
+        return cells.computeIfAbsent(key(location), k -> ConcurrentHashMap.newKeySet());
+    }
+
+    private static int index(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long key(GeoPoint location) {
+        return key(index(location.latitude()), index(location.longitude()));
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class AsyncEventSink implements OrderEventSink, AutoCloseable {
+    private final OrderEventSink subscriber;
+    private final ArrayBlockingQueue<OrderEvent> ringBuffer;
+    private final int maxBatchSize;
+    private final Thread flusher;
+    private final AtomicLong published;
+    private final AtomicInteger publishing;
+    private volatile long delivered;
+    private volatile boolean closed;
+    private volatile boolean drained;
+
+    public AsyncEventSink(OrderEventSink subscriber) {
+        this(subscriber, 8192, 512);
+    }
+
+    public AsyncEventSink(OrderEventSink subscriber, int capacity, int maxBatchSize) {
+        if (subscriber == null) {
+            throw new IllegalArgumentException("Subscriber cannot be null");
+        }
+        if (capacity <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Capacity and batch size must be positive");
+        }
+        this.subscriber = subscriber;
+        this.ringBuffer = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.published = new AtomicLong();
+        this.publishing = new AtomicInteger();
+        this.flusher = new Thread(this::drainLoop, "order-event-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    @Override
+    public void publish(OrderEvent event) {
+        // Counted before the closed check, so close() either turns this call away or waits for it
+        publishing.incrementAndGet();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Event sink is closed");
+            }
+            // A full buffer blocks the producer rather than dropping events, even when it is interrupted
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    ringBuffer.put(event);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            published.incrementAndGet();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            publishing.decrementAndGet();
+        }
+    }
+
+    // Waits until everything published so far has reached the subscriber
+    public void flush() {
+        long target = published.get();
+        while (delivered < target && flusher.isAlive()) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        // Publishers already past the check may still be blocked on a full buffer; the flusher keeps
+        // draining until they are done and only then stops once the buffer is empty
+        while (publishing.get() > 0) {
+            LockSupport.parkNanos(100_000);
+        }
+        drained = true;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        var batch = new ArrayList<OrderEvent>(maxBatchSize);
+        while (!drained || !ringBuffer.isEmpty()) {
+            try {
+                var first = ringBuffer.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                ringBuffer.drainTo(batch, maxBatchSize - 1);
+                subscriber.publishAll(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // A failing subscriber must not kill the flusher and silently stall every producer
+                System.err.println("Order event subscriber failed: " + e.getMessage());
+            } finally {
+                delivered += batch.size();
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,298 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+// Matches waiting orders to agents a batch at a time instead of first-come first-served. Each
+// free place on an agent becomes a slot, the estimated minutes until the order could be picked up
+// are worked out for every order and slot, and the cheapest overall assignment is solved for.
+// The same costs are run through a greedy first-fit so the two can be compared.
+public class BatchMatcher implements AutoCloseable {
+    private static final double KM_PER_MINUTE = 0.5; // 30 km/h through city traffic
+    private static final double UNKNOWN_DISTANCE_KM = 5;
+    private static final double MINUTES_PER_QUEUED_ORDER = 10; // every order already on board is another stop first
+    private static final int CANDIDATES_PER_ORDER = 4;
+    private static final int ROWS_PER_TASK = 16;
+
+    private final DeliveryManager manager;
+    private final int maxBatchSize;
+    private final ForkJoinPool forkJoin;
+    private final LongAdder batches;
+    private final LongAdder matchedOrders;
+    private final LongAdder conflicts;
+    private final DoubleAdder optimalMinutes;
+    private final DoubleAdder greedyMinutes;
+    private volatile long lastSolveNanos;
+    private ScheduledExecutorService scheduler;
+
+    public record Stats(
+            long batches,
+            long matchedOrders,
+            long conflicts,
+            double optimalMinutes,
+            double greedyMinutes,
+            long lastSolveMicros
+    ) {
+        // How much shorter the matched pickups were in total than greedy would have made them
+        public double improvementPercent() {
+            return greedyMinutes == 0 ? 0 : 100 * (greedyMinutes - optimalMinutes) / greedyMinutes;
+        }
+    }
+
+    private record Slot(DeliveryAgent agent, int ordersAhead) {
+    }
+
+    public BatchMatcher(DeliveryManager manager) {
+        this(manager, 256, ForkJoinPool.commonPool());
+    }
+
+    public BatchMatcher(DeliveryManager manager, int maxBatchSize, ForkJoinPool forkJoin) {
+        if (manager == null || forkJoin == null) {
+            throw new IllegalArgumentException("Manager and fork/join pool cannot be null");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.manager = manager;
+        this.maxBatchSize = maxBatchSize;
+        this.forkJoin = forkJoin;
+        this.batches = new LongAdder();
+        this.matchedOrders = new LongAdder();
+        this.conflicts = new LongAdder();
+        this.optimalMinutes = new DoubleAdder();
+        this.greedyMinutes = new DoubleAdder();
+    }
+
+    // Collects the orders waiting right now, solves them as one batch and assigns the result.
+    // Returns the orders that got an agent, now PREPARING.
+    public synchronized List<Order> matchNow() {
+        var slots = slots(manager.idleAgents());
+        var waiting = manager.unassignedOrders();
+        // Oldest orders first; the rest wait for the next window
+        var orders = waiting.subList(0, Math.min(waiting.size(), Math.min(maxBatchSize, slots.size())));
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        long start = System.nanoTime();
+        var costs = costMatrix(orders, slots);
+        var candidates = candidateColumns(costs, orders.size());
+        var reduced = new double[orders.size()][];
+        for (int row = 0; row < reduced.length; row++) {
+            var costRow = costs[row];
+            reduced[row] = Arrays.stream(candidates).mapToDouble(col -> costRow[col]).toArray();
+        }
+        var optimal = HungarianSolver.solve(reduced);
+        double greedyTotal = greedyTotal(costs);
+        lastSolveNanos = System.nanoTime() - start;
+
+        var assigned = new ArrayList<Order>(orders.size());
+        double optimalTotal = 0;
+        for (int row = 0; row < orders.size(); row++) {
+            int col = candidates[optimal[row]];
+            var result = manager.assignOrderTo(orders.get(row), slots.get(col).agent());
+            if (result.isPresent()) {
+                assigned.add(result.get());
+                optimalTotal += costs[row][col];
+            } else {
+                conflicts.increment(); // claimed by a direct assignAgent() since the batch was collected
+            }
+        }
+        batches.increment();
+        matchedOrders.add(assigned.size());
+        optimalMinutes.add(optimalTotal);
+        greedyMinutes.add(greedyTotal * assigned.size() / orders.size());
+        return assigned;
+    }
+
+    // Runs matchNow() on a daemon thread once per window until closed
+    public synchronized void start(long windowMillis) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        if (scheduler != null) {
+            throw new IllegalStateException("Matcher already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "batch-matcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::matchNow, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public Stats stats() {
+        return new Stats(batches.sum(), matchedOrders.sum(), conflicts.sum(), optimalMinutes.sum(),
+                greedyMinutes.sum(), TimeUnit.NANOSECONDS.toMicros(lastSolveNanos));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private static List<Slot> slots(List<DeliveryAgent> agents) {
+        var slots = new ArrayList<Slot>();
+        for (DeliveryAgent agent : agents) {
+            for (int ahead = agent.activeOrderCount(); ahead < agent.capacity(); ahead++) {
+                slots.add(new Slot(agent, ahead));
+            }
+        }
+        return slots;
+    }
+
+    // Estimated minutes until each slot's agent could pick each order up, split across the
+    // fork/join pool for large batches. Coordinates are unpacked into arrays once, in radians.
+    private double[][] costMatrix(List<Order> orders, List<Slot> slots) {
+        var orderPoints = new double[orders.size() * 2];
+        for (int row = 0; row < orders.size(); row++) {
+            var location = orders.get(row).customer().location().orElse(null);
+            putRadians(orderPoints, row, location);
+        }
+        var slotPoints = new double[slots.size() * 2];
+        var slotMinutes = new double[slots.size()];
+        for (int col = 0; col < slots.size(); col++) {
+            var slot = slots.get(col);
+            putRadians(slotPoints, col, slot.agent().location());
+            slotMinutes[col] = slot.ordersAhead() * MINUTES_PER_QUEUED_ORDER;
+        }
+        var costs = new double[orders.size()][slots.size()];
+        forkJoin.invoke(new CostRows(orderPoints, slotPoints, slotMinutes, costs, 0, orders.size()));
+        return costs;
+    }
+
+    private static void putRadians(double[] points, int index, GeoPoint location) {
+        points[2 * index] = location == null ? Double.NaN : Math.toRadians(location.latitude());
+        points[2 * index + 1] = location == null ? Double.NaN : Math.toRadians(location.longitude());
+    }
+
+    // Keeps the solve small when there are far more slots than orders: the union of each order's
+    // cheapest slots, topped up with the slots cheapest for anyone until there are enough columns
+    private static int[] candidateColumns(double[][] costs, int rows) {
+        int columns = costs[0].length;
+        if (columns <= rows * CANDIDATES_PER_ORDER) {
+            int[] all = new int[columns];
+            Arrays.setAll(all, col -> col);
+            return all;
+        }
+        var chosen = new boolean[columns];
+        int count = 0;
+        for (double[] costRow : costs) {
+            for (int col : cheapest(costRow, CANDIDATES_PER_ORDER)) {
+                if (!chosen[col]) {
+                    chosen[col] = true;
+                    count++;
+                }
+            }
+        }
+        if (count < rows) {
+            var bestForAnyone = new double[columns];
+            Arrays.fill(bestForAnyone, Double.POSITIVE_INFINITY);
+            for (double[] costRow : costs) {
+                for (int col = 0; col < columns; col++) {
+                    bestForAnyone[col] = Math.min(bestForAnyone[col], chosen[col] ? Double.POSITIVE_INFINITY : costRow[col]);
+                }
+            }
+            for (int col : cheapest(bestForAnyone, rows - count)) {
+                chosen[col] = true;
+            }
+        }
+        int[] result = new int[Math.max(count, rows)];
+        int next = 0;
+        for (int col = 0; col < columns && next < result.length; col++) {
+            if (chosen[col]) {
+                result[next++] = col;
+            }
+        }
+        return result;
+    }
+
+    // Indexes of the k smallest values, by partial selection sort (k is small)
+    private static int[] cheapest(double[] values, int k) {
+        var picked = new int[k];
+        var taken = new boolean[values.length];
+        for (int i = 0; i < k; i++) {
+            int best = -1;
+            for (int col = 0; col < values.length; col++) {
+                if (!taken[col] && (best < 0 || values[col] < values[best])) {
+                    best = col;
+                }
+            }
+            taken[best] = true;
+            picked[i] = best;
+        }
+        return picked;
+    }
+
+    // What first-fit would have cost: each order in turn takes the cheapest slot still free
+    private static double greedyTotal(double[][] costs) {
+        var taken = new boolean[costs[0].length];
+        double total = 0;
+        for (double[] costRow : costs) {
+            int best = -1;
+            for (int col = 0; col < costRow.length; col++) {
+                if (!taken[col] && (best < 0 || costRow[col] < costRow[best])) {
+                    best = col;
+                }
+            }
+            taken[best] = true;
+            total += costRow[best];
+        }
+        return total;
+    }
+
+    private static final class CostRows extends RecursiveAction {
+        private static final long serialVersionUID = 1L; // ForkJoinTask is Serializable; never actually serialized
+
+        private final double[] orderPoints;
+        private final double[] slotPoints;
+        private final double[] slotMinutes;
+        private final double[][] costs;
+        private final int from;
+        private final int to;
+
+        private CostRows(double[] orderPoints, double[] slotPoints, double[] slotMinutes, double[][] costs,
+                         int from, int to) {
+            this.orderPoints = orderPoints;
+            this.slotPoints = slotPoints;
+            this.slotMinutes = slotMinutes;
+            this.costs = costs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ROWS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new CostRows(orderPoints, slotPoints, slotMinutes, costs, from, middle),
+                        new CostRows(orderPoints, slotPoints, slotMinutes, costs, middle, to));
+                return;
+            }
+            for (int row = from; row < to; row++) {
+                double latitude = orderPoints[2 * row];
+                double longitude = orderPoints[2 * row + 1];
+                double cosLatitude = Math.cos(latitude);
+                var costRow = costs[row];
+                for (int col = 0; col < costRow.length; col++) {
+                    // Equirectangular distance: indistinguishable from haversine at city scale
+                    double dLat = slotPoints[2 * col] - latitude;
+                    double dLon = (slotPoints[2 * col + 1] - longitude) * cosLatitude;
+                    double km = GeoPoint.EARTH_RADIUS_KM * Math.sqrt(dLat * dLat + dLon * dLon);
+                    if (Double.isNaN(km)) {
+                        km = UNKNOWN_DISTANCE_KM; // no location on one side or the other
+                    }
+                    costRow[col] = km / KM_PER_MINUTE + slotMinutes[col];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,515 @@
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+// Micro-benchmarks for the order lifecycle and menu lookups.
+// Run with: java Benchmarks [orders] [agents] [menuSize] [threads]
+public class Benchmarks {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+
+    private static volatile long blackhole; // keeps the JIT from discarding benchmark results
+
+    @FunctionalInterface
+    private interface Trial {
+        int run() throws Exception; // returns the number of operations performed
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] orderCounts = args.length > 0 ? new int[] {Integer.parseInt(args[0])} : new int[] {1_000, 10_000};
+        int[] agentCounts = args.length > 1 ? new int[] {Integer.parseInt(args[1])} : new int[] {10, 1_000};
+        int[] menuSizes = args.length > 2 ? new int[] {Integer.parseInt(args[2])} : new int[] {100, 10_000};
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%-28s %-32s %14s %14s%n", "Benchmark", "Params", "ns/op", "ops/s");
+        for (int orders : orderCounts) {
+            for (int agents : agentCounts) {
+                var params = "orders=" + orders + " agents=" + agents;
+                bench("createOrder", params, () -> createOrderTrial(orders));
+                bench("updateStatus", params, () -> updateStatusTrial(orders));
+                bench("assignAgent", params, () -> assignAgentTrial(orders, agents));
+                bench("assignAgent (nearest)", params, () -> assignNearestAgentTrial(orders, agents));
+                bench("batchMatch", params, () -> batchMatchTrial(orders, agents));
+                bench("completeDelivery", params, () -> completeDeliveryTrial(orders));
+                bench("sendBill (render)", params, () -> sendBillTrial(orders));
+                bench("viewActiveOrders (copy)", params, () -> viewActiveOrdersTrial(orders));
+                bench("activeOrdersPage (50)", params, () -> activeOrdersPageTrial(orders));
+                bench("lifecycle x" + threads + " threads", params, () -> concurrentLifecycleTrial(orders, agents, threads));
+            }
+        }
+        for (int orders : orderCounts) {
+            var params = "orders=" + orders;
+            var sample = sampleOrders(orders);
+            bench("codec encode", params, () -> codecEncodeTrial(sample));
+            bench("codec decode", params, () -> codecDecodeTrial(sample));
+            bench("json encode (baseline)", params, () -> jsonEncodeTrial(sample));
+            bench("json decode (baseline)", params, () -> jsonDecodeTrial(sample));
+            long codecBytes = sample.stream().mapToLong(OrderCodec::encodedSize).sum();
+            long jsonBytes = sample.stream().mapToLong(order -> Json.encode(order).length).sum();
+            System.out.printf("%-28s %-32s %14.1f %14.1f%n", "bytes/order codec, json", params,
+                    (double) codecBytes / orders, (double) jsonBytes / orders);
+        }
+        for (int menuSize : menuSizes) {
+            var params = "menuSize=" + menuSize;
+            var menu = generateMenu(menuSize);
+            bench("findItemByName", params, () -> findItemByNameTrial(menu, menuSize));
+            bench("findItemsByPriceRange", params, () -> findItemsByPriceRangeTrial(menu));
+        }
+    }
+
+    private static void bench(String name, String params, Supplier<Trial> setup) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            setup.get().run();
+        }
+        long totalNanos = 0;
+        long totalOps = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            var trial = setup.get(); // setup is never part of the measurement
+            long start = System.nanoTime();
+            totalOps += trial.run();
+            totalNanos += System.nanoTime() - start;
+        }
+        double nanosPerOp = (double) totalNanos / totalOps;
+        System.out.printf("%-28s %-32s %14.1f %14.0f%n", name, params, nanosPerOp, 1e9 / nanosPerOp);
+    }
+
+    private static Customer customer(int i) {
+        return new Customer("Customer " + i, "08" + (10_000_000 + i), i + " Bench St, Dublin");
+    }
+
+    private static List<Item> basket() {
+        return List.of(new Item("Margherita Pizza", 12.99), new Item("Coca Cola", 2.50));
+    }
+
+    private static DeliveryManager managerWithAgents(int agents) {
+        var manager = new DeliveryManager(OrderEventSink.noOp());
+        for (int i = 0; i < agents; i++) {
+            manager.addAgent(new DeliveryAgent("Agent " + i, "086" + (1_000_000 + i), "D-" + i));
+        }
+        return manager;
+    }
+
+    private static List<Order> placeOrders(DeliveryManager manager, int orders) {
+        var items = basket();
+        var placed = new ArrayList<Order>(orders);
+        for (int i = 0; i < orders; i++) {
+            placed.add(manager.createOrder(customer(i % 500), items));
+        }
+        return placed;
+    }
+
+    private static Trial createOrderTrial(int orders) {
+        var manager = managerWithAgents(0);
+        var items = basket();
+        var customers = new Customer[500];
+        for (int i = 0; i < customers.length; i++) {
+            customers[i] = customer(i);
+        }
+        return () -> {
+            for (int i = 0; i < orders; i++) {
+                blackhole += manager.createOrder(customers[i % customers.length], items).id();
+            }
+            return orders;
+        };
+    }
+
+    // Orders only start PREPARING by being assigned, so the timed step is PREPARING -> DISPATCHED
+    private static Trial updateStatusTrial(int orders) {
+        var manager = managerWithAgents(0);
+        manager.addAgent(new DeliveryAgent("Bench Agent", "0860000000", "D-0", null, orders));
+        var placed = placeOrders(manager, orders);
+        for (Order order : placed) {
+            manager.assignAgent(order).orElseThrow();
+        }
+        return () -> {
+            for (Order order : placed) {
+                blackhole += manager.updateStatus(order, OrderStatus.DISPATCHED).id();
+            }
+            return orders;
+        };
+    }
+
+    private static Trial assignAgentTrial(int orders, int agents) {
+        var manager = managerWithAgents(agents);
+        var placed = placeOrders(manager, orders);
+        return () -> {
+            for (Order order : placed) {
+                handBack(manager, order, manager.assignAgent(order).orElseThrow()); // so the pool never runs dry
+            }
+            return orders;
+        };
+    }
+
+    // Frees the agent the way a real one is freed, by delivering; subtract completeDelivery for assignment alone
+    private static void handBack(DeliveryManager manager, Order order, DeliveryAgent agent) {
+        manager.updateStatus(order, OrderStatus.DISPATCHED);
+        manager.completeDelivery(order, agent);
+    }
+
+    // Agents and customers scattered over a city, with each agent moving to where it was sent
+    private static Trial assignNearestAgentTrial(int orders, int agents) {
+        var random = new SplittableRandom(3);
+        var manager = new DeliveryManager(OrderEventSink.noOp());
+        for (int i = 0; i < agents; i++) {
+            manager.addAgent(new DeliveryAgent("Agent " + i, "086" + (1_000_000 + i), "D-" + i, cityPoint(random)));
+        }
+        var items = basket();
+        var placed = new ArrayList<Order>(orders);
+        for (int i = 0; i < orders; i++) {
+            var customer = new Customer("Customer " + i, "08" + (10_000_000 + i), i + " Bench St, Dublin", cityPoint(random));
+            placed.add(manager.createOrder(customer, items));
+        }
+        return () -> {
+            for (Order order : placed) {
+                handBack(manager, order, manager.assignAgent(order).orElseThrow()); // delivering moves the agent
+            }
+            return orders;
+        };
+    }
+
+    // One matching window over up to 256 waiting orders, per order matched
+    private static Trial batchMatchTrial(int orders, int agents) {
+        var random = new SplittableRandom(5);
+        var manager = new DeliveryManager(OrderEventSink.noOp());
+        for (int i = 0; i < agents; i++) {
+            manager.addAgent(new DeliveryAgent("Agent " + i, "086" + (1_000_000 + i), "D-" + i, cityPoint(random), 2));
+        }
+        var items = basket();
+        for (int i = 0; i < Math.min(orders, 256); i++) {
+            var customer = new Customer("Customer " + i, "08" + (10_000_000 + i), i + " Bench St, Dublin", cityPoint(random));
+            manager.createOrder(customer, items);
+        }
+        var matcher = new BatchMatcher(manager);
+        return () -> Math.max(matcher.matchNow().size(), 1);
+    }
+
+    private static GeoPoint cityPoint(SplittableRandom random) {
+        return new GeoPoint(53.3498 + (random.nextDouble() - 0.5) * 0.2, -6.2603 + (random.nextDouble() - 0.5) * 0.3);
+    }
+
+    // One agent with room for every order, so each is assigned and delivered the way a real one is
+    private static Trial completeDeliveryTrial(int orders) {
+        var manager = managerWithAgents(0);
+        manager.addAgent(new DeliveryAgent("Bench Agent", "0860000000", "D-0", null, orders));
+        var dispatched = new ArrayList<Order>(orders);
+        var assigned = new ArrayList<DeliveryAgent>(orders);
+        for (Order order : placeOrders(manager, orders)) {
+            assigned.add(manager.assignAgent(order).orElseThrow());
+            dispatched.add(manager.updateStatus(order, OrderStatus.DISPATCHED));
+        }
+        return () -> {
+            for (int i = 0; i < orders; i++) {
+                manager.completeDelivery(dispatched.get(i), assigned.get(i));
+            }
+            return orders;
+        };
+    }
+
+    private static Trial sendBillTrial(int orders) {
+        var manager = managerWithAgents(0);
+        var placed = placeOrders(manager, orders);
+        var renderer = new BillRenderer();
+        var out = Writer.nullWriter();
+        return () -> {
+            for (Order order : placed) {
+                renderer.render(order, out);
+            }
+            return orders;
+        };
+    }
+
+    // What a polling dashboard paid before paging: a copy of every active order per poll
+    private static Trial viewActiveOrdersTrial(int orders) {
+        var manager = managerWithAgents(0);
+        placeOrders(manager, orders);
+        return () -> {
+            for (int poll = 0; poll < 100; poll++) {
+                blackhole += manager.viewActiveOrders().get(0).id();
+            }
+            return 100;
+        };
+    }
+
+    private static Trial activeOrdersPageTrial(int orders) {
+        var manager = managerWithAgents(0);
+        placeOrders(manager, orders);
+        return () -> {
+            int cursor = OrderPage.FIRST;
+            for (int poll = 0; poll < 100; poll++) {
+                var page = manager.activeOrdersPage(cursor, 50);
+                cursor = page.hasMore() ? page.nextCursor() : OrderPage.FIRST;
+                blackhole += page.orders().get(0).id();
+            }
+            return 100;
+        };
+    }
+
+    private static Trial concurrentLifecycleTrial(int orders, int agents, int threads) {
+        var manager = managerWithAgents(Math.max(agents, 1));
+        var items = basket();
+        int perThread = Math.max(orders / threads, 1);
+        return () -> {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                var futures = new ArrayList<Future<?>>();
+                for (int t = 0; t < threads; t++) {
+                    var customer = customer(t);
+                    futures.add(pool.submit(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            var order = manager.createOrder(customer, items);
+                            var agent = manager.assignAgent(order);
+                            while (agent.isEmpty()) {
+                                Thread.onSpinWait();
+                                agent = manager.assignAgent(order);
+                            }
+                            manager.updateStatus(order, OrderStatus.DISPATCHED);
+                            manager.completeDelivery(order, agent.get());
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                pool.shutdown();
+            }
+            return perThread * threads;
+        };
+    }
+
+    // Orders as they arrive over the wire: many per customer, a few items each from a small menu
+    private static List<Order> sampleOrders(int orders) {
+        var manager = managerWithAgents(0);
+        var random = new SplittableRandom(5);
+        var dishes = List.of(new Item("Margherita Pizza", 12.99), new Item("Coca Cola", 2.50),
+                new Item("Garlic Bread", 4.50), new Item("Crème Brûlée", 6.00), new Item("Caesar Salad", 8.75));
+        var sample = new ArrayList<Order>(orders);
+        for (int i = 0; i < orders; i++) {
+            var items = new ArrayList<Item>();
+            for (int n = 1 + random.nextInt(4); n > 0; n--) {
+                items.add(dishes.get(random.nextInt(dishes.size())));
+            }
+            sample.add(manager.createOrder(customer(random.nextInt(500)), items));
+        }
+        return sample;
+    }
+
+    private static Trial codecEncodeTrial(List<Order> orders) {
+        var buffer = ByteBuffer.allocateDirect(1 << 20);
+        return () -> {
+            for (Order order : orders) {
+                if (buffer.remaining() < OrderCodec.encodedSize(order)) {
+                    buffer.clear();
+                }
+                OrderCodec.encode(order, buffer);
+            }
+            blackhole += buffer.position();
+            return orders.size();
+        };
+    }
+
+    private static Trial codecDecodeTrial(List<Order> orders) {
+        var buffer = ByteBuffer.allocateDirect(orders.stream().mapToInt(OrderCodec::encodedSize).sum());
+        orders.forEach(order -> OrderCodec.encode(order, buffer));
+        var codec = new OrderCodec();
+        return () -> {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                blackhole += codec.decode(buffer).id();
+            }
+            return orders.size();
+        };
+    }
+
+    private static Trial jsonEncodeTrial(List<Order> orders) {
+        return () -> {
+            for (Order order : orders) {
+                blackhole += Json.encode(order).length;
+            }
+            return orders.size();
+        };
+    }
+
+    private static Trial jsonDecodeTrial(List<Order> orders) {
+        var encoded = orders.stream().map(Json::encode).toList();
+        return () -> {
+            for (byte[] json : encoded) {
+                blackhole += Json.decode(json).id();
+            }
+            return orders.size();
+        };
+    }
+
+    private static Menu generateMenu(int size) {
+        var menu = new Menu();
+        var random = new SplittableRandom(42);
+        var items = new ArrayList<Item>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(new Item("Dish " + i, 100 + random.nextInt(5_000) / 100.0));
+        }
+        menu.loadItems(items);
+        return menu;
+    }
+
+    private static Trial findItemByNameTrial(Menu menu, int menuSize) {
+        var random = new SplittableRandom(7);
+        var names = new String[1_000];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "dish " + random.nextInt(menuSize);
+        }
+        return () -> {
+            for (String name : names) {
+                blackhole += menu.findItemByName(name).priceCents();
+            }
+            return names.length;
+        };
+    }
+
+    private static Trial findItemsByPriceRangeTrial(Menu menu) {
+        var random = new SplittableRandom(11);
+        var from = new double[1_000];
+        for (int i = 0; i < from.length; i++) {
+            from[i] = 100 + random.nextInt(4_900) / 100.0;
+        }
+        return () -> {
+            for (double min : from) {
+                blackhole += menu.findItemsByPriceRange(min, min + 0.50).size();
+            }
+            return from.length;
+        };
+    }
+
+    // The baseline the codec is measured against: hand-rolled JSON to UTF-8 bytes and a small
+    // recursive-descent parser into maps, the way a general-purpose JSON library reads into a tree
+    private static final class Json {
+        private final String text;
+        private int at;
+
+        private Json(String text) {
+            this.text = text;
+        }
+
+        static byte[] encode(Order order) {
+            var json = new StringBuilder(256);
+            var customer = order.customer();
+            json.append("{\"id\":").append(order.id()).append(",\"customer\":{\"name\":");
+            string(json, customer.name()).append(",\"phone\":");
+            string(json, customer.phone()).append(",\"address\":");
+            string(json, customer.address());
+            customer.location().ifPresent(location -> json.append(",\"latitude\":").append(location.latitude())
+                    .append(",\"longitude\":").append(location.longitude()));
+            json.append("},\"items\":[");
+            var items = order.items();
+            for (int i = 0; i < items.size(); i++) {
+                json.append(i == 0 ? "{\"name\":" : ",{\"name\":");
+                string(json, items.get(i).name()).append(",\"priceCents\":").append(items.get(i).priceCents()).append('}');
+            }
+            json.append("],\"totalCents\":").append(order.totalCents())
+                    .append(",\"status\":\"").append(order.status().name())
+                    .append("\",\"estimatedTimeMinutes\":").append(order.estimatedTimeMinutes())
+                    .append(",\"orderTime\":\"").append(order.orderTime()).append("\"}");
+            return json.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @SuppressWarnings("unchecked")
+        static Order decode(byte[] bytes) {
+            var fields = (Map<String, Object>) new Json(new String(bytes, StandardCharsets.UTF_8)).value();
+            var customerFields = (Map<String, Object>) fields.get("customer");
+            var location = customerFields.containsKey("latitude")
+                    ? new GeoPoint((Double) customerFields.get("latitude"), (Double) customerFields.get("longitude"))
+                    : null;
+            var customer = new Customer((String) customerFields.get("name"), (String) customerFields.get("phone"),
+                    (String) customerFields.get("address"), location);
+            var items = new ArrayList<Item>();
+            for (Object item : (List<Object>) fields.get("items")) {
+                var itemFields = (Map<String, Object>) item;
+                items.add(new Item((String) itemFields.get("name"), (Long) itemFields.get("priceCents")));
+            }
+            return new Order(((Long) fields.get("id")).intValue(), customer, items, (Long) fields.get("totalCents"),
+                    OrderStatus.valueOf((String) fields.get("status")),
+                    ((Long) fields.get("estimatedTimeMinutes")).intValue(),
+                    LocalDateTime.parse((String) fields.get("orderTime")));
+        }
+
+        private static StringBuilder string(StringBuilder json, String value) {
+            json.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    json.append('\\').append(c);
+                } else if (c < 0x20) {
+                    json.append(String.format("\\u%04x", (int) c));
+                } else {
+                    json.append(c);
+                }
+            }
+            return json.append('"');
+        }
+
+        private Object value() {
+            char c = text.charAt(at);
+            if (c == '{') {
+                var object = new LinkedHashMap<String, Object>();
+                at++;
+                while (text.charAt(at) != '}') {
+                    var key = string();
+                    at++; // ':'
+                    object.put(key, value());
+                    if (text.charAt(at) == ',') {
+                        at++;
+                    }
+                }
+                at++;
+                return object;
+            }
+            if (c == '[') {
+                var array = new ArrayList<Object>();
+                at++;
+                while (text.charAt(at) != ']') {
+                    array.add(value());
+                    if (text.charAt(at) == ',') {
+                        at++;
+                    }
+                }
+                at++;
+                return array;
+            }
+            if (c == '"') {
+                return string();
+            }
+            int start = at;
+            while (at < text.length() && "-+.eE0123456789".indexOf(text.charAt(at)) >= 0) {
+                at++;
+            }
+            var number = text.substring(start, at);
+            return number.contains(".") || number.contains("e") || number.contains("E")
+                    ? (Object) Double.parseDouble(number) : (Object) Long.parseLong(number);
+        }
+
+        private String string() {
+            var value = new StringBuilder();
+            at++; // opening quote
+            for (char c = text.charAt(at++); c != '"'; c = text.charAt(at++)) {
+                if (c == '\\') {
+                    c = text.charAt(at++);
+                    if (c == 'u') {
+                        c = (char) Integer.parseInt(text, at, at + 4, 16);
+                        at += 4;
+                    }
+                }
+                value.append(c);
+            }
+            return value.toString();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+// Keeps scratch buffers between bills, so use one renderer per thread
+public class BillRenderer {
+    private static final int ITEM_NAME_WIDTH = 20;
+
+    private final StringBuilder scratch;
+    private final CharsetEncoder encoder;
+    private char[] chars;
+
+    public BillRenderer() {
+        this.scratch = new StringBuilder(512);
+        this.encoder = StandardCharsets.UTF_8.newEncoder();
+        this.chars = new char[512];
+    }
+
+    public void render(Order order, Appendable out) throws IOException {
+        out.append("\n========== BILL ==========\n");
+        out.append("Order #").append(Integer.toString(order.id())).append('\n');
+        out.append("Customer: ").append(order.customer().name()).append('\n');
+        out.append("Phone: ").append(order.customer().phone()).append('\n');
+        out.append("Delivery Address: ").append(order.customer().address()).append('\n');
+        out.append("Order Time: ");
+        order.formatOrderTimeTo(out);
+        out.append('\n');
+        out.append("\nItems:\n");
+
+        for (Item item : order.items()) {
+            out.append("  ").append(item.name());
+            for (int pad = item.name().length(); pad < ITEM_NAME_WIDTH; pad++) {
+                out.append(' ');
+            }
+            out.append(" €");
+            Money.appendTo(out, item.priceCents());
+            out.append('\n');
+        }
+
+        out.append("-------------------------\n");
+        out.append("Total: €");
+        Money.appendTo(out, order.totalCents());
+        out.append('\n');
+        out.append("==========================\n");
+    }
+
+    public void render(Order order, StringBuilder out) {
+        try {
+            render(order, (Appendable) out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
+        }
+    }
+
+    // Encodes the bill as UTF-8 straight into the buffer, reusing the renderer's scratch space. If it
+    // does not fit, the buffer is left where it was and BufferOverflowException is thrown.
+    public void render(Order order, ByteBuffer out) {
+        scratch.setLength(0);
+        render(order, scratch);
+        encode(out);
+    }
+
+    // Prints the bill with a single write, so concurrent bills do not interleave line by line
+    public void print(Order order, PrintStream out) {
+        scratch.setLength(0);
+        render(order, scratch);
+        scratch.append('\n');
+        out.print(scratch);
+    }
+
+    // Batch mode: many completed orders into one output stream
+    public void renderAll(Iterable<Order> orders, Appendable out) throws IOException {
+        for (Order order : orders) {
+            render(order, out);
+        }
+    }
+
+    // All or nothing, like the single bill: on overflow none of the bills are left in the buffer
+    public void renderAll(Iterable<Order> orders, ByteBuffer out) {
+        int start = out.position();
+        try {
+            for (Order order : orders) {
+                render(order, out);
+            }
+        } catch (BufferOverflowException e) {
+            out.position(start);
+            throw e;
+        }
+    }
+
+    private void encode(ByteBuffer out) {
+        int length = scratch.length();
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        scratch.getChars(0, length, chars, 0);
+        var input = CharBuffer.wrap(chars, 0, length);
+        int start = out.position();
+        encoder.reset();
+        CoderResult result = encoder.encode(input, out, true);
+        if (result.isUnderflow()) {
+            result = encoder.flush(out);
+        }
+        if (result.isOverflow()) {
+            out.position(start); // no half-written bill for the caller to send
+            throw new BufferOverflowException();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Columnar store for delivered orders. Every field lives in a primitive column outside the Java heap,
+// either in direct buffers or in memory-mapped files; customers are kept in a dictionary and items
+// are referenced by their ItemCatalog id.
+public class CompletedOrderArchive implements AutoCloseable {
+    private static final int INITIAL_ROWS = 1024;
+
+    private final Column ids;
+    private final Column customerRefs;
+    private final Column totals;
+    private final Column estimatedTimes;
+    private final Column orderSeconds;
+    private final Column orderNanos;
+    private final Column deliveredAt;
+    private final Column lineOffsets;
+    private final Column itemIds;
+    private final Column quantities;
+    private final List<Customer> customers;
+    private final Map<Customer, Integer> customerRefsByCustomer;
+    private final ItemCatalog catalog;
+    private final ReentrantReadWriteLock lock;
+    private volatile int size;
+    private int lineCount;
+
+    private CompletedOrderArchive(Path directory) throws IOException {
+        this.ids = new Column(directory, "ids", Integer.BYTES);
+        this.customerRefs = new Column(directory, "customers", Integer.BYTES);
+        this.totals = new Column(directory, "totals", Long.BYTES);
+        this.estimatedTimes = new Column(directory, "estimates", Integer.BYTES);
+        this.orderSeconds = new Column(directory, "order-seconds", Long.BYTES);
+        this.orderNanos = new Column(directory, "order-nanos", Integer.BYTES);
+        this.deliveredAt = new Column(directory, "delivered-at", Long.BYTES);
+        this.lineOffsets = new Column(directory, "line-offsets", Integer.BYTES);
+        this.itemIds = new Column(directory, "item-ids", Integer.BYTES);
+        this.quantities = new Column(directory, "quantities", Integer.BYTES);
+        this.customers = new ArrayList<>();
+        this.customerRefsByCustomer = new HashMap<>();
+        this.catalog = ItemCatalog.shared();
+        this.lock = new ReentrantReadWriteLock();
+        lineOffsets.putInt(0, 0);
+    }
+
+    // Columns in direct buffers: off the heap, gone when the archive is
+    public static CompletedOrderArchive offHeap() {
+        try {
+            return new CompletedOrderArchive(null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // no files involved
+        }
+    }
+
+    // Columns in memory-mapped files under the directory. The archive is a spill area, not a durable
+    // store (the journal is), so existing column files are overwritten.
+    public static CompletedOrderArchive mapped(Path directory) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Archive directory cannot be null");
+        }
+        Files.createDirectories(directory);
+        return new CompletedOrderArchive(directory);
+    }
+
+    // Returns the row the order was stored in
+    public int append(Order order) {
+        lock.writeLock().lock();
+        try {
+            int row = size;
+            int firstLine = lineCount;
+            var lines = order.lines();
+            ids.putInt(row, order.id());
+            customerRefs.putInt(row, customerRef(order.customer()));
+            totals.putLong(row, order.totalCents());
+            estimatedTimes.putInt(row, order.estimatedTimeMinutes());
+            orderSeconds.putLong(row, order.orderTime().toEpochSecond(ZoneOffset.UTC));
+            orderNanos.putInt(row, order.orderTime().getNano());
+            deliveredAt.putLong(row, System.currentTimeMillis());
+            for (int line = 0; line < lines.lineCount(); line++) {
+                itemIds.putInt(firstLine + line, itemRef(lines, line));
+                quantities.putInt(firstLine + line, lines.quantity(line));
+            }
+            lineCount = firstLine + lines.lineCount();
+            lineOffsets.putInt(row + 1, lineCount);
+            size = row + 1; // publish the row only once every column is written
+            return row;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Order get(int index) {
+        lock.readLock().lock();
+        try {
+            checkIndex(index);
+            int from = lineOffsets.getInt(index);
+            int to = lineOffsets.getInt(index + 1);
+            var lineItemIds = new int[to - from];
+            var lineQuantities = new int[to - from];
+            for (int line = from; line < to; line++) {
+                lineItemIds[line - from] = itemIds.getInt(line);
+                lineQuantities[line - from] = quantities.getInt(line);
+            }
+            var lines = OrderLines.of(catalog, lineItemIds, lineQuantities);
+            var orderTime = LocalDateTime.ofEpochSecond(orderSeconds.getLong(index), orderNanos.getInt(index), ZoneOffset.UTC);
+            return new Order(ids.getInt(index), customers.get(customerRefs.getInt(index)), lines,
+                    totals.getLong(index), OrderStatus.DELIVERED, estimatedTimes.getInt(index), orderTime);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long deliveredAtMillis(int index) {
+        lock.readLock().lock();
+        try {
+            checkIndex(index);
+            return deliveredAt.getLong(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Straight off the totals column, without building any Order
+    public long totalRevenueCents() {
+        lock.readLock().lock();
+        try {
+            long revenue = 0;
+            for (int i = 0, rows = size; i < rows; i++) {
+                revenue += totals.getLong(i);
+            }
+            return revenue;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A read-only list over the rows archived so far; orders are decoded only when asked for
+    public List<Order> view() {
+        int rows = size;
+        return new ArchiveView(rows);
+    }
+
+    // Rows are never rewritten, so paging by row number is stable while orders keep arriving
+    public OrderPage page(int fromRow, int limit) {
+        if (fromRow < 0 || limit <= 0) {
+            throw new IllegalArgumentException("Row must not be negative and page size must be positive");
+        }
+        int rows = size;
+        int from = Math.min(fromRow, rows);
+        int to = (int) Math.min((long) from + limit, rows);
+        return new OrderPage(new ArchiveView(rows).subList(from, to), to, to < rows);
+    }
+
+    // Over the rows archived when called; splits evenly by row range when run in parallel
+    public Stream<Order> stream() {
+        return view().stream();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (Column column : List.of(ids, customerRefs, totals, estimatedTimes, orderSeconds,
+                    orderNanos, deliveredAt, lineOffsets, itemIds, quantities)) {
+                column.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Archived order index " + index + " out of range 0.." + size);
+        }
+    }
+
+    private int customerRef(Customer customer) {
+        return customerRefsByCustomer.computeIfAbsent(customer, c -> {
+            customers.add(c);
+            return customers.size() - 1;
+        });
+    }
+
+    private int itemRef(OrderLines lines, int line) {
+        return lines.catalog() == catalog ? lines.itemId(line) : catalog.intern(lines.item(line));
+    }
+
+    private final class ArchiveView extends AbstractList<Order> implements RandomAccess {
+        private final int rows;
+
+        private ArchiveView(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public Order get(int index) {
+            if (index >= rows) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of range 0.." + rows);
+            }
+            return CompletedOrderArchive.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return rows;
+        }
+    }
+
+    // One fixed-width primitive column that doubles its backing buffer as it fills
+    private static final class Column {
+        private final int width;
+        private final FileChannel channel;
+        private ByteBuffer buffer;
+
+        private Column(Path directory, String name, int width) throws IOException {
+            this.width = width;
+            long bytes = (long) INITIAL_ROWS * width;
+            if (directory == null) {
+                this.channel = null;
+                this.buffer = ByteBuffer.allocateDirect((int) bytes);
+            } else {
+                this.channel = FileChannel.open(directory.resolve(name + ".col"), StandardOpenOption.CREATE,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            }
+        }
+
+        private void putInt(int row, int value) {
+            ensure(row);
+            buffer.putInt(row * width, value);
+        }
+
+        private void putLong(int row, long value) {
+            ensure(row);
+            buffer.putLong(row * width, value);
+        }
+
+        private int getInt(int row) {
+            return buffer.getInt(row * width);
+        }
+
+        private long getLong(int row) {
+            return buffer.getLong(row * width);
+        }
+
+        private void ensure(int row) {
+            long needed = (long) (row + 1) * width;
+            if (needed <= buffer.capacity()) {
+                return;
+            }
+            long grown = Math.max(needed, (long) buffer.capacity() * 2);
+            if (grown > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Archive column is full");
+            }
+            try {
+                if (channel == null) {
+                    var larger = ByteBuffer.allocateDirect((int) grown);
+                    larger.put(0, buffer, 0, buffer.capacity());
+                    buffer = larger;
+                } else {
+                    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, grown); // the file grows with the mapping
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not grow archive column", e);
+            }
+        }
+
+        private void close() throws IOException {
+            if (channel != null) {
+                if (buffer instanceof MappedByteBuffer mapped) {
+                    mapped.force();
+                }
+                channel.close();
+            }
+        }
+    }
+}
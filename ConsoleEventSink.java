@@ -0,0 +1,55 @@
+import java.io.PrintStream;
+import java.util.List;
+
+public class ConsoleEventSink implements OrderEventSink {
+    private final PrintStream out;
+    private final BillRenderer bills;
+
+    public ConsoleEventSink() {
+        this(System.out);
+    }
+
+    public ConsoleEventSink(PrintStream out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Output stream cannot be null");
+        }
+        this.out = out;
+        this.bills = new BillRenderer();
+    }
+
+    @Override
+    public synchronized void publish(OrderEvent event) {
+        var text = new StringBuilder();
+        describe(event, text);
+        out.print(text);
+    }
+
+    @Override
+    public synchronized void publishAll(List<OrderEvent> events) {
+        // One write per batch, so the stream lock is taken once rather than per line
+        var text = new StringBuilder();
+        for (OrderEvent event : events) {
+            describe(event, text);
+        }
+        out.print(text);
+    }
+
+    private void describe(OrderEvent event, StringBuilder text) {
+        var order = event.order();
+        switch (event.type()) {
+            case ORDER_CREATED -> text.append("Order created: ").append(order).append('\n');
+            case STATUS_UPDATED -> text.append("Order #").append(order.id())
+                    .append(" status updated to: ").append(order.status()).append('\n')
+                    .append(order.status().getDisplayMessage()).append('\n');
+            case AGENT_ASSIGNED -> text.append("Agent ").append(event.agent().name())
+                    .append(" assigned to order #").append(order.id()).append('\n');
+            case NO_AGENT_AVAILABLE -> text.append("No available agents at the moment\n");
+            case ORDER_DELIVERED -> {
+                text.append("Agent ").append(event.agent().name())
+                        .append(" delivered order #").append(order.id()).append('\n');
+                bills.render(order, text);
+                text.append('\n');
+            }
+        }
+    }
+}
@@ -1,14 +1,22 @@
 import java.util.List;
+import java.util.Optional;
 
 public final class Customer extends User {
     private final String address;
+    private final GeoPoint location;
 
+    // The location is looked up from the address in the shared geocoder table
     public Customer(String name, String phone, String address) {
+        this(name, phone, address, Geocoder.shared().locate(address).orElse(null));
+    }
+
+    public Customer(String name, String phone, String address, GeoPoint location) {
         super(name, phone);
         if (address == null || address.isBlank()) {
             throw new IllegalArgumentException("Address cannot be null or empty");
         }
         this.address = address;
+        this.location = location;
     }
 
     public Customer(String name, String phone) {
@@ -19,17 +27,19 @@ public final class Customer extends User {
         return address;
     }
 
+    public Optional<GeoPoint> location() {
+        return Optional.ofNullable(location);
+    }
+
     public Order placeOrder(List<Item> items, String deliveryAddress) {
 
         if (deliveryAddress == null || deliveryAddress.isBlank()) {
             deliveryAddress = this.address;
         }
 
-        double total = items.stream()
-                .mapToDouble(Item::price)
-                .sum();
+        long total = Money.total(items);
 
-        int estimatedTime = items.size() > 10 ? 60 : items.size() > 5 ? 45 : 30;
+        int estimatedTime = Order.estimateDeliveryMinutes(items.size());
 
         return new Order(
                 (int)(Math.random() * 10000),
@@ -0,0 +1,198 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// One Customer per phone number, however the number was typed, plus each customer's order history:
+// the ids of the orders they placed, oldest first, and for delivered ones their row in the archive.
+// Histories are only ever appended to, so reading one never means looking at anyone else's orders.
+// Each customer's orders not yet delivered are also kept apart, so finding them skips the history.
+public class CustomerRegistry {
+    public static final int NOT_ARCHIVED = -1;
+
+    private final ConcurrentHashMap<String, Entry> entries;
+
+    public CustomerRegistry() {
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    // An order id and, once it has been delivered, its row in the CompletedOrderArchive
+    public record HistoryEntry(int orderId, int archiveRow) {
+        public boolean archived() {
+            return archiveRow != NOT_ARCHIVED;
+        }
+    }
+
+    // Digits only, with the Irish international prefix folded into the national 0, so that
+    // "+353 87 123 4567", "00353871234567" and "(087) 123-4567" are all the same customer. Something
+    // with no digits at all, like "ask at reception", is kept as typed apart from surrounding spaces.
+    public static String normalizePhone(String phone) {
+        if (phone == null) {
+            throw new IllegalArgumentException("Phone cannot be null");
+        }
+        var digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        if (digits.isEmpty()) {
+            return phone.strip();
+        }
+        if (digits.indexOf("00353") == 0) {
+            digits.replace(0, 5, "0");
+        } else if (digits.indexOf("353") == 0 && phone.strip().startsWith("+")) {
+            digits.replace(0, 3, "0");
+        }
+        return digits.toString();
+    }
+
+    // Returns the registered customer when the details are unchanged, so the address is only
+    // geocoded for new customers and customers who moved
+    public Customer register(String name, String phone, String address) {
+        var entry = entries.get(normalizePhone(phone));
+        if (entry != null) {
+            var known = entry.customer;
+            if (known.name().equals(name) && known.address().equals(address)) {
+                return known;
+            }
+        }
+        return intern(new Customer(name, phone, address));
+    }
+
+    // The customer already registered under this phone number if the details match, otherwise the
+    // given one, which replaces it: the latest details win and the history carries over
+    public Customer intern(Customer customer) {
+        if (customer == null) {
+            throw new IllegalArgumentException("Customer cannot be null");
+        }
+        return entries.computeIfAbsent(normalizePhone(customer.phone()), phone -> new Entry(customer)).intern(customer);
+    }
+
+    public Optional<Customer> find(String phone) {
+        var entry = entries.get(normalizePhone(phone));
+        return entry == null ? Optional.empty() : Optional.of(entry.customer);
+    }
+
+    public void recordOrder(Order order) {
+        entryFor(order).append(order.id());
+    }
+
+    public void recordArchived(Order order, int archiveRow) {
+        if (archiveRow < 0) {
+            throw new IllegalArgumentException("Archive row cannot be negative");
+        }
+        entryFor(order).archive(order.id(), archiveRow);
+    }
+
+    // Oldest first; empty for a phone number that never ordered
+    public List<HistoryEntry> history(String phone) {
+        var entry = entries.get(normalizePhone(phone));
+        return entry == null ? List.of() : entry.snapshot();
+    }
+
+    // Ids of the customer's orders that have not been delivered yet, oldest first
+    public List<Integer> activeOrderIds(String phone) {
+        var entry = entries.get(normalizePhone(phone));
+        return entry == null ? List.of() : entry.activeOrderIds();
+    }
+
+    public int archiveRow(String phone, int orderId) {
+        var entry = entries.get(normalizePhone(phone));
+        return entry == null ? NOT_ARCHIVED : entry.archiveRow(orderId);
+    }
+
+    public int orderCount(String phone) {
+        var entry = entries.get(normalizePhone(phone));
+        return entry == null ? 0 : entry.size();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private Entry entryFor(Order order) {
+        var phone = normalizePhone(order.customer().phone());
+        return entries.computeIfAbsent(phone, key -> new Entry(order.customer()));
+    }
+
+    private static final class Entry {
+        private volatile Customer customer;
+        private final LinkedHashSet<Integer> active; // ids not yet archived, oldest first
+        private int[] orderIds;
+        private int[] archiveRows;
+        private int size;
+
+        Entry(Customer customer) {
+            this.customer = customer;
+            this.orderIds = new int[4];
+            this.archiveRows = new int[4];
+            this.active = new LinkedHashSet<>();
+        }
+
+        synchronized Customer intern(Customer candidate) {
+            var known = customer;
+            if (candidate == known || (candidate.name().equals(known.name())
+                    && candidate.address().equals(known.address())
+                    && Objects.equals(candidate.location(), known.location()))) {
+                return known;
+            }
+            customer = candidate;
+            return candidate;
+        }
+
+        synchronized void append(int orderId) {
+            if (size == orderIds.length) {
+                orderIds = Arrays.copyOf(orderIds, size * 2);
+                archiveRows = Arrays.copyOf(archiveRows, size * 2);
+            }
+            orderIds[size] = orderId;
+            archiveRows[size] = NOT_ARCHIVED;
+            size++;
+            active.add(orderId);
+        }
+
+        // Searched from the newest end, where orders still being delivered usually are
+        synchronized void archive(int orderId, int archiveRow) {
+            active.remove(orderId);
+            for (int i = size - 1; i >= 0; i--) {
+                if (orderIds[i] == orderId) {
+                    archiveRows[i] = archiveRow;
+                    return;
+                }
+            }
+            append(orderId); // placed before this registry was tracking it
+            archiveRows[size - 1] = archiveRow;
+            active.remove(orderId);
+        }
+
+        synchronized List<Integer> activeOrderIds() {
+            return new ArrayList<>(active);
+        }
+
+        synchronized int archiveRow(int orderId) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (orderIds[i] == orderId) {
+                    return archiveRows[i];
+                }
+            }
+            return NOT_ARCHIVED;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized List<HistoryEntry> snapshot() {
+            var history = new HistoryEntry[size];
+            for (int i = 0; i < size; i++) {
+                history[i] = new HistoryEntry(orderIds[i], archiveRows[i]);
+            }
+            return List.of(history);
+        }
+    }
+}
@@ -1,47 +1,203 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public final class DeliveryAgent extends User {
     private final String vehicleNo;
-    private boolean available;
+    private final int capacity;
+    private final AtomicInteger activeOrders;
+    private final AtomicBoolean queued;
+    private volatile AgentPool pool;
+    private volatile GeoPoint location;
 
     public DeliveryAgent(String name, String phone, String vehicleNo) {
+        this(name, phone, vehicleNo, null);
+    }
+
+    public DeliveryAgent(String name, String phone, String vehicleNo, GeoPoint location) {
+        this(name, phone, vehicleNo, location, 1);
+    }
+
+    // Capacity is how many orders the agent can carry at once
+    public DeliveryAgent(String name, String phone, String vehicleNo, GeoPoint location, int capacity) {
         super(name, phone);
         if (vehicleNo == null || vehicleNo.isBlank()) {
             throw new IllegalArgumentException("Vehicle number cannot be null or empty");
         }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
         this.vehicleNo = vehicleNo;
-        this.available = true; // New agents are available by default
+        this.capacity = capacity;
+        this.activeOrders = new AtomicInteger(); // New agents are available by default
+        this.queued = new AtomicBoolean(false);
+        this.location = location;
     }
 
     public String vehicleNo() {
         return vehicleNo;
     }
 
+    // Null until the agent reports a position
+    public GeoPoint location() {
+        return location;
+    }
+
+    public void moveTo(GeoPoint newLocation) {
+        if (newLocation == null) {
+            throw new IllegalArgumentException("Location cannot be null");
+        }
+        synchronized (this) {
+            var previous = location;
+            location = newLocation;
+            var currentPool = pool;
+            if (currentPool != null) {
+                currentPool.relocate(this, previous, newLocation);
+            }
+        }
+    }
+
+    // True while the agent has room for at least one more order
     public boolean available() {
-        return available;
+        return activeOrders.get() < capacity;
     }
 
+    public int capacity() {
+        return capacity;
+    }
+
+    public int activeOrderCount() {
+        return activeOrders.get();
+    }
+
+    // Marking an agent available clears its load; unavailable fills it up
     public void setAvailable(boolean available) {
-        this.available = available;
+        int previous = activeOrders.getAndSet(available ? 0 : capacity);
+        if (available && previous == capacity) {
+            reportFreed();
+        } else if (!available && previous < capacity) {
+            reportFilled();
+        }
+        returnToPool();
+    }
+
+    // Returns false instead of throwing when other dispatchers already filled this agent up
+    public boolean tryAcceptOrder(Order order) {
+        int current;
+        do {
+            current = activeOrders.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!activeOrders.compareAndSet(current, current + 1));
+        if (current + 1 == capacity) {
+            reportFilled();
+        }
+        return true;
     }
 
     public void acceptOrder(Order order) {
-        if (!available) {
+        if (!tryAcceptOrder(order)) {
             throw new IllegalStateException("Agent is not available");
         }
-        System.out.println("Agent " + name() + " accepted order #" + order.id());
-        this.available = false;
     }
 
     public void deliver(Order order) {
         if (order.status() != OrderStatus.DISPATCHED) {
             throw new IllegalStateException("Order must be dispatched before delivery");
         }
-        System.out.println("Agent " + name() + " delivered order #" + order.id());
-        this.available = true; // Agent becomes available after delivery
+        if (activeOrders.get() == 0) {
+            throw new IllegalStateException("Agent " + name() + " is not carrying order #" + order.id());
+        }
+        order.customer().location().ifPresent(this::moveTo); // the agent is now at the customer's door
+        releaseOrder(order); // one order fewer to carry
+    }
+
+    // Gives back the slot an order took, whether it was delivered or never handed over
+    void releaseOrder(Order order) {
+        int current;
+        do {
+            current = activeOrders.get();
+            if (current == 0) {
+                throw new IllegalStateException("Agent " + name() + " is not carrying order #" + order.id());
+            }
+        } while (!activeOrders.compareAndSet(current, current - 1));
+        if (current == capacity) {
+            reportFreed();
+        }
+        returnToPool();
+    }
+
+    void joinPool(AgentPool pool) {
+        if (this.pool == pool) {
+            return;
+        }
+        if (this.pool != null) {
+            throw new IllegalStateException("Agent " + name() + " already belongs to another pool");
+        }
+        this.pool = pool;
+        if (available()) {
+            pool.agentFreed();
+        }
+    }
+
+    boolean belongsTo(AgentPool pool) {
+        return this.pool == pool;
+    }
+
+    // Fills an agent with no orders up to capacity in one step, so only an idle agent can be moved
+    boolean tryReserveIdle() {
+        if (!activeOrders.compareAndSet(0, capacity)) {
+            return false;
+        }
+        reportFilled();
+        return true;
+    }
+
+    // The agent is free again once it has left, ready to join another pool
+    void leavePool(AgentPool pool) {
+        if (this.pool == pool) {
+            this.pool = null;
+        }
+        queued.set(false);
+        activeOrders.set(0);
+    }
+
+    // The queued flag keeps an agent from sitting in its pool's idle queue more than once
+    boolean enterPoolQueue() {
+        return queued.compareAndSet(false, true);
+    }
+
+    void leavePoolQueue() {
+        queued.set(false);
+    }
+
+    // Every change between having room and being full is reported, whichever path made it, so the
+    // pool's count of available agents never drifts from the agents themselves
+    private void reportFilled() {
+        var currentPool = pool;
+        if (currentPool != null) {
+            currentPool.agentFilled();
+        }
+    }
+
+    private void reportFreed() {
+        var currentPool = pool;
+        if (currentPool != null) {
+            currentPool.agentFreed();
+        }
+    }
+
+    private void returnToPool() {
+        var currentPool = pool;
+        if (currentPool != null) {
+            currentPool.release(this);
+        }
     }
 
     @Override
     public String getDetails() {
         return super.getDetails() + ", Vehicle: " + vehicleNo +
-                ", Available: " + (available ? "Yes" : "No");
+                ", Available: " + (available() ? "Yes" : "No") +
+                (capacity > 1 ? ", Orders: " + activeOrders.get() + "/" + capacity : "");
     }
 }
\ No newline at end of file
@@ -1,19 +1,103 @@
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public class DeliveryManager {
-    private final List<Order> activeOrders;
-    private final List<Order> completedOrders;
+    private final OrderStore activeOrders;
+    private final CompletedOrderArchive completedOrders;
     private final List<DeliveryAgent> agents;
-    private int nextOrderId;
+    private final AgentPool agentPool;
+    private final Map<Integer, DeliveryAgent> assignments;
+    private final AtomicInteger nextOrderId;
+    private final int firstOrderId;
+    private final int orderIdStride;
+    private final OrderEventSink events;
+    private final ThreadLocal<BillRenderer> bills;
+    private final DeliveryMetrics metrics;
+    private final CustomerRegistry customers;
 
     public DeliveryManager() {
-        this.activeOrders = new ArrayList<>();
-        this.completedOrders = new ArrayList<>();
-        this.agents = new ArrayList<>();
-        this.nextOrderId = 1000;
+        this(new ConsoleEventSink());
+    }
+
+    public DeliveryManager(OrderEventSink events) {
+        this(events, CompletedOrderArchive.offHeap());
+    }
+
+    public DeliveryManager(OrderEventSink events, CompletedOrderArchive completedOrders) {
+        this(events, completedOrders, new DeliveryMetrics());
+    }
+
+    public DeliveryManager(OrderEventSink events, CompletedOrderArchive completedOrders, DeliveryMetrics metrics) {
+        this(events, completedOrders, metrics, 1000, 1);
+    }
+
+    // Hands out ids firstOrderId, firstOrderId + stride, ... so that managers running side by side as
+    // shards, each with its own offset, never issue the same order id
+    public DeliveryManager(OrderEventSink events, CompletedOrderArchive completedOrders, DeliveryMetrics metrics,
+                           int firstOrderId, int orderIdStride) {
+        if (events == null) {
+            throw new IllegalArgumentException("Event sink cannot be null");
+        }
+        if (completedOrders == null) {
+            throw new IllegalArgumentException("Completed order archive cannot be null");
+        }
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics cannot be null");
+        }
+        if (firstOrderId <= 0 || orderIdStride <= 0) {
+            throw new IllegalArgumentException("First order id and id stride must be positive");
+        }
+        this.events = events;
+        this.bills = ThreadLocal.withInitial(BillRenderer::new);
+        this.activeOrders = new OrderStore();
+        this.completedOrders = completedOrders;
+        this.agents = new CopyOnWriteArrayList<>();
+        this.agentPool = new AgentPool();
+        this.assignments = new ConcurrentHashMap<>();
+        this.nextOrderId = new AtomicInteger(firstOrderId);
+        this.firstOrderId = firstOrderId;
+        this.orderIdStride = orderIdStride;
+        this.metrics = metrics;
+        this.customers = new CustomerRegistry();
+        metrics.registerGauge("activeOrders", activeOrders::size);
+        metrics.registerGauge("unassignedOrders", () -> activeOrders.byStatus(OrderStatus.ORDER_PLACED).size());
+        metrics.registerGauge("completedOrders", completedOrders::size);
+        metrics.registerGauge("agents", agents::size);
+        metrics.registerGauge("idleAgents", agentPool::idleCount);
+        var allAgents = agents; // so the gauge does not capture the manager before it is fully built
+        metrics.registerGauge("agentUtilization", () -> utilization(allAgents));
+    }
+
+    public DeliveryMetrics metrics() {
+        return metrics;
+    }
+
+    public CustomerRegistry customers() {
+        return customers;
+    }
+
+    // Share of all agent capacity currently carrying an order, from 0 to 1
+    public double agentUtilization() {
+        return utilization(agents);
+    }
+
+    private static double utilization(List<DeliveryAgent> agents) {
+        long carried = 0;
+        long capacity = 0;
+        for (DeliveryAgent agent : agents) {
+            carried += agent.activeOrderCount();
+            capacity += agent.capacity();
+        }
+        return capacity == 0 ? 0 : (double) carried / capacity;
     }
 
     public void addAgent(DeliveryAgent agent) {
@@ -21,102 +105,458 @@ public class DeliveryManager {
             throw new IllegalArgumentException("Agent cannot be null");
         }
         agents.add(agent);
+        agentPool.add(agent);
+    }
+
+    // Only an agent with no orders on board can leave, so it can be handed to another manager.
+    // Returns false if it is busy, is being dispatched right now, or does not work here.
+    public boolean removeAgent(DeliveryAgent agent) {
+        if (agent == null) {
+            throw new IllegalArgumentException("Agent cannot be null");
+        }
+        if (!agents.contains(agent) || !agentPool.remove(agent)) {
+            return false;
+        }
+        agents.remove(agent);
+        return true;
     }
 
     public Order createOrder(Customer customer, List<Item> items) {
-        var order = customer.placeOrder(items, customer.address());
+        long start = metrics.start();
+        try {
+            if (customer == null) {
+                throw new IllegalArgumentException("Customer cannot be null");
+            }
+            // Priced directly into the tracked order; no throwaway Order from Customer.placeOrder
+            var lines = OrderLines.of(items);
+            var registered = customers.intern(customer);
+            var newOrder = newOrder(nextOrderId.getAndAdd(orderIdStride), registered, lines, LocalDateTime.now());
+
+            var lock = activeOrders.lockFor(newOrder.id());
+            lock.lock();
+            try {
+                customers.recordOrder(newOrder); // in the history before anyone can deliver it
+                activeOrders.add(newOrder);
+                events.publish(new OrderEvent(OrderEventType.ORDER_CREATED, newOrder));
+            } finally {
+                lock.unlock();
+            }
+            return newOrder;
+        } catch (RuntimeException e) {
+            metrics.recordFailure(DeliveryMetrics.Operation.CREATE_ORDER);
+            throw e;
+        } finally {
+            metrics.record(DeliveryMetrics.Operation.CREATE_ORDER, start);
+        }
+    }
 
-        var newOrder = new Order(
-                nextOrderId++,
-                order.customer(),
-                order.items(),
-                order.totalPrice(),
+    // Validates and prices the whole batch before taking a single block of ids, then publishes in one go
+    public List<Order> createOrders(List<OrderRequest> batch) {
+        long start = metrics.start();
+        try {
+            if (batch == null) {
+                throw new IllegalArgumentException("Batch cannot be null");
+            }
+            var priced = new OrderLines[batch.size()];
+            var registered = new Customer[batch.size()];
+            for (int i = 0; i < priced.length; i++) {
+                var request = batch.get(i);
+                if (request == null) {
+                    throw new IllegalArgumentException("Order request " + i + " cannot be null");
+                }
+                priced[i] = OrderLines.of(request.items());
+            }
+            for (int i = 0; i < priced.length; i++) { // only once the whole batch is known to be good
+                registered[i] = customers.intern(batch.get(i).customer());
+            }
+
+            int firstId = nextOrderId.getAndAdd(priced.length * orderIdStride);
+            var orderTime = LocalDateTime.now();
+            var orders = new ArrayList<Order>(priced.length);
+            var created = new ArrayList<OrderEvent>(priced.length);
+            for (int i = 0; i < priced.length; i++) {
+                var order = newOrder(firstId + i * orderIdStride, registered[i], priced[i], orderTime);
+                orders.add(order);
+                created.add(new OrderEvent(OrderEventType.ORDER_CREATED, order));
+            }
+            activeOrders.runLocked(orders.stream().map(Order::id).toList(), () -> {
+                for (Order order : orders) {
+                    customers.recordOrder(order);
+                    activeOrders.add(order);
+                }
+                events.publishAll(created);
+            });
+            return orders;
+        } catch (RuntimeException e) {
+            metrics.recordFailure(DeliveryMetrics.Operation.CREATE_ORDERS);
+            throw e;
+        } finally {
+            metrics.record(DeliveryMetrics.Operation.CREATE_ORDERS, start);
+        }
+    }
+
+    private static Order newOrder(int id, Customer customer, OrderLines lines, LocalDateTime orderTime) {
+        return new Order(
+                id,
+                customer,
+                lines,
+                lines.totalCents(),
                 OrderStatus.ORDER_PLACED,
-                order.estimatedTimeMinutes(),
-                order.orderTime()
+                Order.estimateDeliveryMinutes(lines.itemCount()),
+                orderTime
         );
-
-        activeOrders.add(newOrder);
-        System.out.println("Order created: " + newOrder);
-        return newOrder;
     }
 
+    // The steps in between only: an order starts PREPARING by being given an agent, and is DELIVERED
+    // only by that agent through completeDelivery, which also archives it and frees the agent
     public Order updateStatus(Order order, OrderStatus newStatus) {
-        var updatedOrder = order.withStatus(newStatus);
-
-        int index = activeOrders.indexOf(order);
-        if (index != -1) {
-            activeOrders.set(index, updatedOrder);
+        long start = metrics.start();
+        try {
+            if (newStatus == OrderStatus.DELIVERED) {
+                throw new IllegalStateException("Order #" + order.id() + " can only be delivered by its agent");
+            }
+            var lock = activeOrders.lockFor(order.id());
+            lock.lock();
+            try {
+                var current = activeOrders.get(order.id());
+                if (newStatus == OrderStatus.PREPARING && current != null
+                        && current.status() == OrderStatus.ORDER_PLACED && !assignments.containsKey(order.id())) {
+                    throw new IllegalStateException("Order #" + order.id() + " needs an agent before it is prepared");
+                }
+                var event = applyStatus(order, newStatus);
+                events.publish(event);
+                return event.order();
+            } finally {
+                lock.unlock();
+            }
+        } catch (RuntimeException e) {
+            metrics.recordFailure(DeliveryMetrics.Operation.UPDATE_STATUS);
+            throw e;
+        } finally {
+            metrics.record(DeliveryMetrics.Operation.UPDATE_STATUS, start);
         }
+    }
 
-        System.out.println("Order #" + order.id() + " status updated to: " + newStatus);
-        System.out.println(newStatus.getDisplayMessage());
+    // Checked against the tracked order rather than the caller's copy, which may be out of date.
+    // Callers publish the event before letting go of the order's stripe lock, so every sink, the
+    // journal included, sees one order's changes in the order they were made.
+    private OrderEvent applyStatus(Order order, OrderStatus newStatus) {
+        var lock = activeOrders.lockFor(order.id());
+        lock.lock();
+        try {
+            var current = requireTransition(order, newStatus);
+            var updatedOrder = current.withStatus(newStatus);
+            activeOrders.replace(updatedOrder);
+            return new OrderEvent(OrderEventType.STATUS_UPDATED, updatedOrder, null, current.status());
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        return updatedOrder;
+    private Order requireTransition(Order order, OrderStatus newStatus) {
+        if (newStatus == null) {
+            throw new IllegalArgumentException("Status cannot be null");
+        }
+        var current = activeOrders.get(order.id());
+        if (current == null) {
+            throw new IllegalStateException("Order #" + order.id() + " is not active");
+        }
+        if (!current.status().canTransitionTo(newStatus)) {
+            throw new IllegalStateException("Order #" + order.id() + " cannot go from "
+                    + current.status() + " to " + newStatus);
+        }
+        return current;
     }
 
+    // Moves the order one step along its lifecycle from wherever it is now; see updateStatus above
+    // for the steps this cannot take
     public Order updateStatus(Order order) {
-        OrderStatus nextStatus = switch(order.status()) {
-            case ORDER_PLACED -> OrderStatus.PREPARING;
-            case PREPARING -> OrderStatus.DISPATCHED;
-            case DISPATCHED -> OrderStatus.DELIVERED;
-            case DELIVERED -> OrderStatus.DELIVERED; // Already delivered
-        };
-        return updateStatus(order, nextStatus);
+        var current = activeOrders.get(order.id());
+        var status = current != null ? current.status() : order.status();
+        return updateStatus(order, status.next());
     }
 
-    public void assignAgent(Order order) {
-        Optional<DeliveryAgent> availableAgent = agents.stream()
-                .filter(DeliveryAgent::available)
-                .findFirst();
+    // Only an order still waiting for an agent can be given one; checked under the order's lock so
+    // that assigning twice cannot claim a second agent and leave the first one busy for good
+    public Optional<DeliveryAgent> assignAgent(Order order) {
+        long start = metrics.start();
+        try {
+            Optional<DeliveryAgent> availableAgent;
+            var lock = activeOrders.lockFor(order.id());
+            lock.lock();
+            try {
+                var current = requireUnassigned(order); // before an agent is claimed for nothing
+                availableAgent = agentPool.acquire(current);
+                if (availableAgent.isPresent()) {
+                    var statusEvent = assign(current, availableAgent.get());
+                    events.publishAll(List.of(statusEvent,
+                            new OrderEvent(OrderEventType.AGENT_ASSIGNED, statusEvent.order(), availableAgent.get())));
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (availableAgent.isEmpty()) {
+                events.publish(new OrderEvent(OrderEventType.NO_AGENT_AVAILABLE, order)); // nothing changed
+            }
+            return availableAgent;
+        } catch (RuntimeException e) {
+            metrics.recordFailure(DeliveryMetrics.Operation.ASSIGN_AGENT);
+            throw e;
+        } finally {
+            metrics.record(DeliveryMetrics.Operation.ASSIGN_AGENT, start);
+        }
+    }
 
-        if (availableAgent.isPresent()) {
-            var agent = availableAgent.get();
-            agent.acceptOrder(order);
-            var updatedOrder = updateStatus(order, OrderStatus.PREPARING);
-            System.out.println("Agent " + agent.name() + " assigned to order #" + order.id());
-        } else {
-            System.out.println("No available agents at the moment");
+    // One pass over the idle pool for the whole batch; returns the orders that got an agent, now PREPARING
+    public List<Order> assignAgents(List<Order> orders) {
+        long start = metrics.start();
+        try {
+            var assigned = new ArrayList<Order>(orders.size());
+            var unassigned = new ArrayList<OrderEvent>();
+            for (Order order : orders) {
+                requireUnassigned(order);
+            }
+            boolean poolEmpty = false;
+            for (Order order : orders) {
+                if (poolEmpty) {
+                    unassigned.add(new OrderEvent(OrderEventType.NO_AGENT_AVAILABLE, order));
+                    continue;
+                }
+                var lock = activeOrders.lockFor(order.id());
+                lock.lock();
+                try {
+                    var current = activeOrders.get(order.id());
+                    if (current == null || current.status() != OrderStatus.ORDER_PLACED
+                            || assignments.containsKey(order.id())) {
+                        continue; // assigned elsewhere since the batch was checked
+                    }
+                    var agent = agentPool.acquire(current);
+                    if (agent.isEmpty()) {
+                        poolEmpty = true;
+                        unassigned.add(new OrderEvent(OrderEventType.NO_AGENT_AVAILABLE, current));
+                        continue;
+                    }
+                    var statusEvent = assign(current, agent.get());
+                    events.publishAll(List.of(statusEvent,
+                            new OrderEvent(OrderEventType.AGENT_ASSIGNED, statusEvent.order(), agent.get())));
+                    assigned.add(statusEvent.order());
+                } finally {
+                    lock.unlock();
+                }
+            }
+            events.publishAll(unassigned);
+            return assigned;
+        } catch (RuntimeException e) {
+            metrics.recordFailure(DeliveryMetrics.Operation.ASSIGN_AGENTS);
+            throw e;
+        } finally {
+            metrics.record(DeliveryMetrics.Operation.ASSIGN_AGENTS, start);
         }
     }
 
-    public void completeDelivery(Order order, DeliveryAgent agent) {
-        var deliveredOrder = updateStatus(order, OrderStatus.DELIVERED);
-        agent.deliver(deliveredOrder);
+    // Assigns the agent a matcher picked for the order; empty if the order was assigned elsewhere
+    // or the agent filled up in the meantime
+    public Optional<Order> assignOrderTo(Order order, DeliveryAgent agent) {
+        if (agent == null) {
+            throw new IllegalArgumentException("Agent cannot be null");
+        }
+        var lock = activeOrders.lockFor(order.id());
+        lock.lock();
+        try {
+            var current = activeOrders.get(order.id());
+            if (current == null || current.status() != OrderStatus.ORDER_PLACED
+                    || assignments.containsKey(order.id()) || !agentPool.claim(agent, current)) {
+                return Optional.empty();
+            }
+            var statusEvent = assign(current, agent);
+            events.publishAll(List.of(statusEvent,
+                    new OrderEvent(OrderEventType.AGENT_ASSIGNED, statusEvent.order(), agent)));
+            return Optional.of(statusEvent.order());
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        activeOrders.remove(order);
-        completedOrders.add(deliveredOrder);
+    private Order requireUnassigned(Order order) {
+        var current = activeOrders.get(order.id());
+        if (current == null) {
+            throw new IllegalStateException("Order #" + order.id() + " is not active");
+        }
+        if (assignments.containsKey(order.id())) {
+            throw new IllegalStateException("Order #" + order.id() + " already has an agent");
+        }
+        if (current.status() != OrderStatus.ORDER_PLACED) {
+            throw new IllegalStateException("Order #" + order.id() + " is " + current.status() + ", not waiting for an agent");
+        }
+        return current;
+    }
 
-        sendBill(deliveredOrder);
+    // Called holding the order's stripe lock with the agent's slot already claimed, which is given
+    // back if the order cannot move on
+    private OrderEvent assign(Order current, DeliveryAgent agent) {
+        OrderEvent statusEvent;
+        try {
+            statusEvent = applyStatus(current, OrderStatus.PREPARING);
+        } catch (RuntimeException e) {
+            agent.releaseOrder(current);
+            throw e;
+        }
+        assignments.put(current.id(), agent);
+        return statusEvent;
     }
 
-    public void sendBill(Order order) {
-        StringBuilder bill = new StringBuilder();
-        bill.append("\n========== BILL ==========\n");
-        bill.append("Order #").append(order.id()).append("\n");
-        bill.append("Customer: ").append(order.customer().name()).append("\n");
-        bill.append("Phone: ").append(order.customer().phone()).append("\n");
-        bill.append("Delivery Address: ").append(order.customer().address()).append("\n");
-        bill.append("Order Time: ").append(order.getFormattedOrderTime()).append("\n");
-        bill.append("\nItems:\n");
+    // Placed orders still waiting for an agent, oldest first
+    public List<Order> unassignedOrders() {
+        return activeOrders.byStatus(OrderStatus.ORDER_PLACED).stream()
+                .filter(order -> !assignments.containsKey(order.id()))
+                .toList();
+    }
 
-        for (Item item : order.items()) {
-            bill.append(String.format("  %-20s €%.2f%n", item.name(), item.price()));
+    // Agents with room for at least one more order
+    public List<DeliveryAgent> idleAgents() {
+        return agents.stream()
+                .filter(DeliveryAgent::available)
+                .toList();
+    }
+
+    // Only the agent the order was assigned to can deliver it
+    public void completeDelivery(Order order, DeliveryAgent agent) {
+        long start = metrics.start();
+        try {
+            if (agent == null) {
+                throw new IllegalArgumentException("Agent cannot be null");
+            }
+            var lock = activeOrders.lockFor(order.id());
+            lock.lock();
+            try {
+                // The caller may hold an older copy of the order, so deliver the one we are tracking
+                var current = requireTransition(order, OrderStatus.DELIVERED);
+                if (assignments.get(order.id()) != agent) {
+                    throw new IllegalStateException("Order #" + order.id() + " is not assigned to " + agent.name());
+                }
+                agent.deliver(current);
+                var statusEvent = applyStatus(current, OrderStatus.DELIVERED);
+
+                // Archived before it leaves the active orders, so a history lookup always finds it in one or the other
+                var deliveredOrder = statusEvent.order();
+                customers.recordArchived(deliveredOrder, completedOrders.append(deliveredOrder));
+                activeOrders.remove(order.id());
+                assignments.remove(order.id());
+                // The bill itself is rendered by whichever subscriber cares about it, such as ConsoleEventSink
+                events.publishAll(List.of(statusEvent,
+                        new OrderEvent(OrderEventType.ORDER_DELIVERED, deliveredOrder, agent)));
+            } finally {
+                lock.unlock();
+            }
+        } catch (RuntimeException e) {
+            metrics.recordFailure(DeliveryMetrics.Operation.COMPLETE_DELIVERY);
+            throw e;
+        } finally {
+            metrics.record(DeliveryMetrics.Operation.COMPLETE_DELIVERY, start);
         }
+    }
 
-        bill.append("-------------------------\n");
-        bill.append(String.format("Total: €%.2f%n", order.totalPrice()));
-        bill.append("==========================\n");
+    public Optional<DeliveryAgent> assignedAgent(int orderId) {
+        return Optional.ofNullable(assignments.get(orderId));
+    }
 
-        System.out.println(bill.toString());
+    // Rebuilds state from a journal; agents must already be registered so their assignments can be restored
+    public void restore(OrderJournal.RecoveredState state) {
+        if (activeOrders.size() > 0 || completedOrders.size() > 0) {
+            throw new IllegalStateException("Can only restore into an empty manager");
+        }
+        for (Order order : state.activeOrders()) {
+            activeOrders.add(order);
+            var agentPhone = state.agentPhoneByOrder().get(order.id());
+            if (agentPhone != null) {
+                agents.stream()
+                        .filter(agent -> agent.phone().equals(agentPhone))
+                        .findFirst()
+                        .ifPresent(agent -> {
+                            agent.tryAcceptOrder(order); // takes up one of the agent's slots again
+                            assignments.put(order.id(), agent);
+                        });
+            }
+        }
+        // Histories are rebuilt oldest first across both lists
+        Stream.concat(state.activeOrders().stream(), state.completedOrders().stream())
+                .sorted(Comparator.comparingInt(Order::id))
+                .forEach(customers::recordOrder);
+        for (Order order : state.completedOrders()) {
+            customers.recordArchived(order, completedOrders.append(order));
+        }
+        // Round up onto this manager's own sequence of ids
+        int behind = Math.max(state.nextOrderId() - firstOrderId, 0);
+        nextOrderId.set(firstOrderId + (behind + orderIdStride - 1) / orderIdStride * orderIdStride);
+    }
+
+    int peekNextOrderId() {
+        return nextOrderId.get();
+    }
+
+    public void sendBill(Order order) {
+        long start = metrics.start();
+        try {
+            bills.get().print(order, System.out);
+        } catch (RuntimeException e) {
+            metrics.recordFailure(DeliveryMetrics.Operation.SEND_BILL);
+            throw e;
+        } finally {
+            metrics.record(DeliveryMetrics.Operation.SEND_BILL, start);
+        }
     }
 
     public List<Order> viewActiveOrders() {
-        return new ArrayList<>(activeOrders);
+        return activeOrders.toList();
+    }
+
+    // For dashboards that poll: a page at a time in id order instead of a copy of every order.
+    // Orders placed or completed between pages are picked up or skipped, never repeated.
+    public OrderPage activeOrdersPage(int cursor, int limit) {
+        return activeOrders.page(cursor, limit);
+    }
+
+    public OrderPage activeOrdersPage(OrderStatus status, int cursor, int limit) {
+        return activeOrders.page(status, cursor, limit);
+    }
+
+    // Lazy over the live orders; call parallel() on it for large scans
+    public Stream<Order> streamActiveOrders() {
+        return activeOrders.stream();
     }
 
+    public Stream<Order> streamActiveOrders(OrderStatus status) {
+        return activeOrders.stream(status);
+    }
+
+    public int activeOrderCount() {
+        return activeOrders.size();
+    }
+
+    public Order findActiveOrder(int id) {
+        return activeOrders.get(id);
+    }
+
+    // A lazy, read-only view: orders are decoded from the archive only when read
     public List<Order> viewCompletedOrders() {
-        return new ArrayList<>(completedOrders);
+        return completedOrders.view();
+    }
+
+    // The cursor is the number of archived orders already read
+    public OrderPage completedOrdersPage(int cursor, int limit) {
+        return completedOrders.page(cursor, limit);
+    }
+
+    public Stream<Order> streamCompletedOrders() {
+        return completedOrders.stream();
+    }
+
+    public int completedOrderCount() {
+        return completedOrders.size();
+    }
+
+    public long completedRevenueCents() {
+        return completedOrders.totalRevenueCents();
     }
 
     public List<Order> filterOrders(Predicate<Order> condition) {
@@ -125,16 +565,85 @@ public class DeliveryManager {
                 .toList();
     }
 
-    public void displayOrdersByStatus(OrderStatus status) {
-        // status parameter is effectively final - can be used in lambda
-        var filteredOrders = activeOrders.stream()
-                .filter(order -> order.status() == status)
+    // Only walks the orders already in the given status instead of every active order
+    public List<Order> filterOrders(OrderStatus status, Predicate<Order> condition) {
+        return activeOrders.stream(status)
+                .filter(condition)
                 .toList();
+    }
+
+    public List<Order> findOrdersByStatus(OrderStatus status) {
+        return List.copyOf(activeOrders.byStatus(status));
+    }
+
+    // Active orders only; the phone number may be written any way CustomerRegistry accepts
+    public List<Order> findOrdersByPhone(String phone) {
+        var ids = customers.activeOrderIds(phone);
+        var orders = new ArrayList<Order>(ids.size());
+        for (int id : ids) {
+            var order = activeOrders.get(id); // null if it was delivered since the ids were read
+            if (order != null) {
+                orders.add(order);
+            }
+        }
+        return orders;
+    }
+
+    // Every order the customer has placed here, oldest first and as it stands now. Only their own
+    // orders are read: active ones by id, delivered ones straight from their archive row.
+    public List<Order> orderHistory(String phone) {
+        var history = customers.history(phone);
+        var orders = new ArrayList<Order>(history.size());
+        for (var entry : history) {
+            historyOrder(phone, entry).ifPresent(orders::add);
+        }
+        return orders;
+    }
+
+    public Optional<Order> lastOrder(String phone) {
+        var history = customers.history(phone);
+        for (int i = history.size() - 1; i >= 0; i--) {
+            var order = historyOrder(phone, history.get(i));
+            if (order.isPresent()) {
+                return order;
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Places the customer's most recent order again, for the same items
+    public Order reorder(String phone) {
+        var customer = customers.find(phone)
+                .orElseThrow(() -> new IllegalArgumentException("No customer with phone " + phone));
+        var last = lastOrder(phone)
+                .orElseThrow(() -> new IllegalStateException(customer.name() + " has no previous order"));
+        return createOrder(customer, last.items());
+    }
+
+    // Empty only for an order that is still being placed
+    private Optional<Order> historyOrder(String phone, CustomerRegistry.HistoryEntry entry) {
+        int row = entry.archiveRow();
+        if (row == CustomerRegistry.NOT_ARCHIVED) {
+            var active = activeOrders.get(entry.orderId());
+            if (active != null) {
+                return Optional.of(active);
+            }
+            row = customers.archiveRow(phone, entry.orderId()); // delivered since the history was read
+        }
+        return row == CustomerRegistry.NOT_ARCHIVED ? Optional.empty() : Optional.of(completedOrders.get(row));
+    }
+
+    public void displayOrdersByStatus(OrderStatus status) {
+        var filteredOrders = activeOrders.byStatus(status);
 
         System.out.println("\n=== Orders with status: " + status + " ===");
         filteredOrders.forEach(System.out::println); // Method reference
     }
 
+    public int idleAgentCount() {
+        return agentPool.idleCount();
+    }
+
     public List<DeliveryAgent> viewAgents() {
         return new ArrayList<>(agents);
     }
@@ -0,0 +1,229 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Call counts, failures and latency histograms for the hot paths, plus pull-style gauges.
+// Recording a call takes two nanoTime reads and a few striped increments, and allocates nothing
+// unless the call was slow enough to be traced.
+public class DeliveryMetrics implements DeliveryMetricsMXBean {
+    private static final int SLOW_CALLS_KEPT = 64;
+    private static final DeliveryMetrics DISABLED = new DeliveryMetrics(false);
+
+    public enum Operation {
+        CREATE_ORDER,
+        CREATE_ORDERS,
+        UPDATE_STATUS,
+        ASSIGN_AGENT,
+        ASSIGN_AGENTS,
+        COMPLETE_DELIVERY,
+        SEND_BILL,
+        MENU_FIND_BY_NAME,
+        MENU_FIND_BY_PREFIX,
+        MENU_SUGGEST,
+        MENU_PRICE_RANGE
+    }
+
+    public record OperationStats(
+            Operation operation,
+            long calls,
+            long failures,
+            double meanNanos,
+            long p50Nanos,
+            long p99Nanos,
+            long p999Nanos,
+            long maxNanos
+    ) {
+    }
+
+    public record SlowCall(Operation operation, long nanos, long atMillis, String thread) {
+    }
+
+    public record Snapshot(List<OperationStats> operations, Map<String, Double> gauges, List<SlowCall> slowCalls) {
+        public void printTo(PrintStream out) {
+            out.printf("%-20s %10s %8s %10s %10s %10s %10s%n", "operation", "calls", "failed", "mean ns", "p50 ns", "p99 ns", "max ns");
+            for (OperationStats stats : operations) {
+                if (stats.calls() > 0) {
+                    out.printf("%-20s %10d %8d %10.0f %10d %10d %10d%n", stats.operation(), stats.calls(), stats.failures(),
+                            stats.meanNanos(), stats.p50Nanos(), stats.p99Nanos(), stats.maxNanos());
+                }
+            }
+            gauges.forEach((name, value) -> out.printf("%-20s %10.2f%n", name, value));
+        }
+    }
+
+    private record Gauge(String name, DoubleSupplier value) {
+    }
+
+    private final boolean enabled;
+    private final Map<Operation, LongAdder> failures;
+    private final Map<Operation, LatencyHistogram> latencies;
+    private final List<Gauge> gauges;
+    private final AtomicReferenceArray<SlowCall> slowCalls;
+    private final AtomicLong slowCallCount;
+    private volatile long slowCallThresholdNanos;
+
+    public DeliveryMetrics() {
+        this(true);
+    }
+
+    private DeliveryMetrics(boolean enabled) {
+        this.enabled = enabled;
+        this.failures = new EnumMap<>(Operation.class);
+        this.latencies = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            failures.put(operation, new LongAdder());
+            latencies.put(operation, new LatencyHistogram());
+        }
+        this.gauges = new CopyOnWriteArrayList<>();
+        this.slowCalls = new AtomicReferenceArray<>(SLOW_CALLS_KEPT);
+        this.slowCallCount = new AtomicLong();
+        this.slowCallThresholdNanos = 10_000_000; // 10 ms
+    }
+
+    // Records nothing; for components that are not being measured
+    public static DeliveryMetrics disabled() {
+        return DISABLED;
+    }
+
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    // Every call is recorded here, from a finally block, whether it succeeded or not
+    public void record(Operation operation, long startNanos) {
+        if (!enabled) {
+            return;
+        }
+        long nanos = System.nanoTime() - startNanos;
+        latencies.get(operation).record(nanos);
+        if (nanos >= slowCallThresholdNanos) {
+            long slot = slowCallCount.getAndIncrement();
+            slowCalls.set((int) (slot % SLOW_CALLS_KEPT),
+                    new SlowCall(operation, nanos, System.currentTimeMillis(), Thread.currentThread().getName()));
+        }
+    }
+
+    public void recordFailure(Operation operation) {
+        if (enabled) {
+            failures.get(operation).increment();
+        }
+    }
+
+    public void registerGauge(String name, DoubleSupplier value) {
+        if (name == null || name.isBlank() || value == null) {
+            throw new IllegalArgumentException("Gauge name and value are required");
+        }
+        if (enabled) {
+            gauges.add(new Gauge(name, value));
+        }
+    }
+
+    public void setSlowCallThresholdNanos(long thresholdNanos) {
+        if (thresholdNanos <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        this.slowCallThresholdNanos = thresholdNanos;
+    }
+
+    public OperationStats stats(Operation operation) {
+        var histogram = latencies.get(operation);
+        return new OperationStats(operation, histogram.count(), failures.get(operation).sum(), histogram.mean(),
+                histogram.percentile(50), histogram.percentile(99), histogram.percentile(99.9), histogram.max());
+    }
+
+    public Snapshot snapshot() {
+        var operations = new ArrayList<OperationStats>();
+        for (Operation operation : Operation.values()) {
+            operations.add(stats(operation));
+        }
+        return new Snapshot(operations, getGauges(), recentSlowCalls());
+    }
+
+    // Most recent first
+    public List<SlowCall> recentSlowCalls() {
+        var recent = new ArrayList<SlowCall>();
+        long newest = slowCallCount.get();
+        for (long i = newest - 1; i >= Math.max(0, newest - SLOW_CALLS_KEPT); i--) {
+            var call = slowCalls.get((int) (i % SLOW_CALLS_KEPT));
+            if (call != null) {
+                recent.add(call);
+            }
+        }
+        return recent;
+    }
+
+    // Exposes these metrics to JMX consoles such as JConsole or VisualVM
+    public ObjectName registerMBean(String name) {
+        try {
+            var objectName = new ObjectName("SmartFoodDelivery:type=DeliveryMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register metrics MBean " + name, e);
+        }
+    }
+
+    public void unregisterMBean(ObjectName objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister metrics MBean " + objectName, e);
+        }
+    }
+
+    @Override
+    public Map<String, Long> getCallCounts() {
+        var counts = new LinkedHashMap<String, Long>();
+        latencies.forEach((operation, histogram) -> counts.put(operation.name(), histogram.count()));
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getFailureCounts() {
+        var counts = new LinkedHashMap<String, Long>();
+        failures.forEach((operation, failed) -> counts.put(operation.name(), failed.sum()));
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getP99LatencyNanos() {
+        var p99 = new LinkedHashMap<String, Long>();
+        latencies.forEach((operation, histogram) -> p99.put(operation.name(), histogram.percentile(99)));
+        return p99;
+    }
+
+    @Override
+    public Map<String, Double> getGauges() {
+        var values = new LinkedHashMap<String, Double>();
+        for (Gauge gauge : gauges) {
+            values.put(gauge.name(), gauge.value().getAsDouble());
+        }
+        return values;
+    }
+
+    @Override
+    public long getSlowCallCount() {
+        return slowCallCount.get();
+    }
+
+    @Override
+    public void reset() {
+        failures.values().forEach(LongAdder::reset);
+        latencies.values().forEach(LatencyHistogram::reset);
+        for (int i = 0; i < SLOW_CALLS_KEPT; i++) {
+            slowCalls.set(i, null);
+        }
+        slowCallCount.set(0);
+    }
+}
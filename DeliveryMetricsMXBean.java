@@ -0,0 +1,17 @@
+import java.util.Map;
+
+// What DeliveryMetrics shows through JMX; keys are operation or gauge names
+public interface DeliveryMetricsMXBean {
+
+    Map<String, Long> getCallCounts();
+
+    Map<String, Long> getFailureCounts();
+
+    Map<String, Long> getP99LatencyNanos();
+
+    Map<String, Double> getGauges();
+
+    long getSlowCallCount();
+
+    void reset();
+}
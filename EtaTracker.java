@@ -0,0 +1,165 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Keeps a deadline for every active order in a timing wheel, fed by order events. The ETA is
+// recomputed whenever an order moves to a new stage. When an order misses its ETA it is reported
+// as overdue, and it is escalated again each time the escalation interval passes.
+public class EtaTracker implements OrderEventSink, AutoCloseable {
+    private static final long MINUTE_MILLIS = 60_000;
+    private static final int MAX_ESCALATIONS = 3;
+
+    public interface Listener {
+        void overdue(Order order, long lateMillis);
+
+        default void escalate(Order order, int level, long lateMillis) {
+        }
+    }
+
+    private final Listener listener;
+    private final LongSupplier clock;
+    private final long escalationMillis;
+    private final TimingWheel<Tracked> wheel;
+    private final Map<Integer, Tracked> tracked;
+    private ScheduledExecutorService ticker;
+
+    private record Firing(Order order, int level, long lateMillis) {
+    }
+
+    private static final class Tracked {
+        private Order order;
+        private long etaMillis;
+        private int escalations;
+        private TimingWheel<Tracked>.Timeout timeout;
+
+        private Tracked(Order order) {
+            this.order = order;
+        }
+    }
+
+    public EtaTracker(Listener listener) {
+        this(listener, 1_000, 10 * MINUTE_MILLIS, System::currentTimeMillis);
+    }
+
+    public EtaTracker(Listener listener, long tickMillis, long escalationMillis, LongSupplier clock) {
+        if (listener == null || clock == null) {
+            throw new IllegalArgumentException("Listener and clock cannot be null");
+        }
+        if (escalationMillis <= 0) {
+            throw new IllegalArgumentException("Escalation interval must be positive");
+        }
+        this.listener = listener;
+        this.clock = clock;
+        this.escalationMillis = escalationMillis;
+        this.wheel = new TimingWheel<>(tickMillis, clock.getAsLong());
+        this.tracked = new HashMap<>();
+    }
+
+    // Time left until delivery once an order reaches the given stage: preparation takes about
+    // two thirds of the estimate and the trip the remaining third
+    public static long remainingMillis(Order order, OrderStatus status) {
+        long estimate = order.estimatedTimeMinutes() * MINUTE_MILLIS;
+        return switch (status) {
+            case ORDER_PLACED -> estimate;
+            case PREPARING -> estimate * 2 / 3;
+            case DISPATCHED -> estimate / 3;
+            case DELIVERED -> 0;
+        };
+    }
+
+    @Override
+    public void publish(OrderEvent event) {
+        switch (event.type()) {
+            case ORDER_CREATED -> track(event.order());
+            case STATUS_UPDATED -> {
+                if (event.previousStatus() != event.order().status()) {
+                    track(event.order());
+                }
+            }
+            case ORDER_DELIVERED -> untrack(event.order().id());
+            case AGENT_ASSIGNED, NO_AGENT_AVAILABLE -> {
+                // the stage, and so the ETA, stays the same
+            }
+        }
+    }
+
+    // Starts tracking the order from its current stage, or re-plans it if it is already tracked
+    public synchronized void track(Order order) {
+        if (order.status() == OrderStatus.DELIVERED) {
+            untrack(order.id());
+            return;
+        }
+        var entry = tracked.computeIfAbsent(order.id(), id -> new Tracked(order));
+        entry.order = order;
+        entry.etaMillis = clock.getAsLong() + remainingMillis(order, order.status());
+        entry.escalations = 0;
+        wheel.cancel(entry.timeout);
+        entry.timeout = wheel.schedule(entry, entry.etaMillis);
+    }
+
+    public synchronized void untrack(int orderId) {
+        var entry = tracked.remove(orderId);
+        if (entry != null) {
+            wheel.cancel(entry.timeout);
+        }
+    }
+
+    public synchronized OptionalLong etaMillis(int orderId) {
+        var entry = tracked.get(orderId);
+        return entry == null ? OptionalLong.empty() : OptionalLong.of(entry.etaMillis);
+    }
+
+    public synchronized int trackedCount() {
+        return tracked.size();
+    }
+
+    // Fires every deadline that has passed. Listeners run after the lock is released.
+    public void tick() {
+        var firings = new ArrayList<Firing>();
+        synchronized (this) {
+            long now = clock.getAsLong();
+            wheel.advanceTo(now, entry -> {
+                firings.add(new Firing(entry.order, entry.escalations, now - entry.etaMillis));
+                if (entry.escalations < MAX_ESCALATIONS) {
+                    entry.escalations++;
+                    entry.timeout = wheel.schedule(entry, entry.etaMillis + entry.escalations * escalationMillis);
+                } else {
+                    entry.timeout = null; // escalated as far as it goes; keep the ETA until it is delivered
+                }
+            });
+        }
+        for (Firing firing : firings) {
+            if (firing.level() == 0) {
+                listener.overdue(firing.order(), firing.lateMillis());
+            } else {
+                listener.escalate(firing.order(), firing.level(), firing.lateMillis());
+            }
+        }
+    }
+
+    // Ticks on a daemon thread at the wheel's resolution until closed
+    public synchronized void start() {
+        if (ticker != null) {
+            throw new IllegalStateException("Tracker already started");
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "eta-tracker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, wheel.tickMillis(), wheel.tickMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+}
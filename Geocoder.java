@@ -0,0 +1,76 @@
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Resolves addresses to coordinates from a local lookup table, without any network calls.
+// The table holds full addresses and place names; an address that is not listed in full
+// falls back to its most specific known comma-separated part, e.g. "456 Oak Ave, Cork" to Cork.
+public class Geocoder {
+    private static final Geocoder SHARED = withIrishPlaces();
+
+    private final Map<String, GeoPoint> places;
+
+    public Geocoder() {
+        this.places = new ConcurrentHashMap<>();
+    }
+
+    public static Geocoder shared() {
+        return SHARED;
+    }
+
+    public void register(String address, GeoPoint location) {
+        if (address == null || address.isBlank()) {
+            throw new IllegalArgumentException("Address cannot be null or empty");
+        }
+        if (location == null) {
+            throw new IllegalArgumentException("Location cannot be null");
+        }
+        places.put(normalize(address), location);
+    }
+
+    public Optional<GeoPoint> locate(String address) {
+        if (address == null || address.isBlank()) {
+            return Optional.empty();
+        }
+        var normalized = normalize(address);
+        var exact = places.get(normalized);
+        if (exact != null) {
+            return Optional.of(exact);
+        }
+        // Parts run from most to least specific, so the first known one wins
+        var parts = normalized.split(",");
+        for (int i = 1; i < parts.length; i++) {
+            var place = places.get(parts[i].strip());
+            if (place != null) {
+                return Optional.of(place);
+            }
+        }
+        return Optional.ofNullable(places.get(parts[0].strip()));
+    }
+
+    public int size() {
+        return places.size();
+    }
+
+    private static String normalize(String address) {
+        return address.strip().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    private static Geocoder withIrishPlaces() {
+        var geocoder = new Geocoder();
+        geocoder.register("Dublin", new GeoPoint(53.3498, -6.2603));
+        geocoder.register("Cork", new GeoPoint(51.8985, -8.4756));
+        geocoder.register("Galway", new GeoPoint(53.2707, -9.0568));
+        geocoder.register("Limerick", new GeoPoint(52.6638, -8.6267));
+        geocoder.register("Waterford", new GeoPoint(52.2593, -7.1101));
+        geocoder.register("Kilkenny", new GeoPoint(52.6541, -7.2448));
+        geocoder.register("Sligo", new GeoPoint(54.2766, -8.4761));
+        geocoder.register("Athlone", new GeoPoint(53.4239, -7.9407));
+        geocoder.register("Drogheda", new GeoPoint(53.7179, -6.3561));
+        geocoder.register("Dundalk", new GeoPoint(54.0090, -6.4049));
+        geocoder.register("Wexford", new GeoPoint(52.3369, -6.4633));
+        geocoder.register("Tralee", new GeoPoint(52.2713, -9.7026));
+        return geocoder;
+    }
+}
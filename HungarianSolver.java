@@ -0,0 +1,76 @@
+import java.util.Arrays;
+
+// Minimum-cost assignment of rows to distinct columns (Kuhn-Munkres with potentials), O(n^2 m)
+// for n rows and m >= n columns.
+public final class HungarianSolver {
+
+    private HungarianSolver() {
+    }
+
+    // Returns the column chosen for each row
+    public static int[] solve(double[][] cost) {
+        int n = cost.length;
+        if (n == 0) {
+            return new int[0];
+        }
+        int m = cost[0].length;
+        if (n > m) {
+            throw new IllegalArgumentException("Need at least as many columns as rows, got " + n + "x" + m);
+        }
+        // 1-based, with row/column 0 as the virtual start of each augmenting path
+        var rowPotential = new double[n + 1];
+        var colPotential = new double[m + 1];
+        var rowOfCol = new int[m + 1];
+        var previousCol = new int[m + 1];
+        var minSlack = new double[m + 1];
+        var visited = new boolean[m + 1];
+        for (int row = 1; row <= n; row++) {
+            rowOfCol[0] = row;
+            int col = 0;
+            Arrays.fill(minSlack, Double.POSITIVE_INFINITY);
+            Arrays.fill(visited, false);
+            do {
+                visited[col] = true;
+                int currentRow = rowOfCol[col];
+                double delta = Double.POSITIVE_INFINITY;
+                int nextCol = 0;
+                var costRow = cost[currentRow - 1];
+                for (int j = 1; j <= m; j++) {
+                    if (!visited[j]) {
+                        double slack = costRow[j - 1] - rowPotential[currentRow] - colPotential[j];
+                        if (slack < minSlack[j]) {
+                            minSlack[j] = slack;
+                            previousCol[j] = col;
+                        }
+                        if (minSlack[j] < delta) {
+                            delta = minSlack[j];
+                            nextCol = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (visited[j]) {
+                        rowPotential[rowOfCol[j]] += delta;
+                        colPotential[j] -= delta;
+                    } else {
+                        minSlack[j] -= delta;
+                    }
+                }
+                col = nextCol;
+            } while (rowOfCol[col] != 0);
+            // Flip the augmenting path back to the start
+            do {
+                int prior = previousCol[col];
+                rowOfCol[col] = rowOfCol[prior];
+                col = prior;
+            } while (col != 0);
+        }
+        var assignment = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (rowOfCol[j] != 0) {
+                assignment[rowOfCol[j] - 1] = j - 1;
+            }
+        }
+        return assignment;
+    }
+}
@@ -1,16 +1,27 @@
-public record Item(String name, double price) {
+public record Item(String name, long priceCents) {
 
     public Item {
         if (name == null || name.isBlank()) {
             throw new IllegalArgumentException("Item name cannot be null or empty");
         }
-        if (price <= 0) {
+        if (priceCents <= 0) {
             throw new IllegalArgumentException("Item price must be positive");
         }
     }
 
+    public Item(String name, double price) {
+        this(name, Money.ofEuros(price));
+    }
+
+    public double price() {
+        return Money.toEuros(priceCents);
+    }
+
     @Override
     public String toString() {
-        return String.format("%s - €%.2f", name, price);
+        var text = new StringBuilder(name.length() + 12);
+        text.append(name).append(" - €");
+        Money.appendTo(text, priceCents);
+        return text.toString();
     }
-}
\ No newline at end of file
+}
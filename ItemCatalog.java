@@ -0,0 +1,55 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Interns items into dense integer ids so orders can refer to them with a plain int
+public class ItemCatalog {
+    private static final ItemCatalog SHARED = new ItemCatalog();
+
+    private final ConcurrentHashMap<Item, Integer> ids;
+    private volatile Item[] items;
+    private int size;
+
+    public ItemCatalog() {
+        this.ids = new ConcurrentHashMap<>();
+        this.items = new Item[256];
+    }
+
+    public static ItemCatalog shared() {
+        return SHARED;
+    }
+
+    public int intern(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("Item cannot be null");
+        }
+        var id = ids.get(item);
+        return id != null ? id : register(item);
+    }
+
+    public Item item(int id) {
+        var snapshot = items;
+        if (id < 0 || id >= snapshot.length || snapshot[id] == null) {
+            throw new IllegalArgumentException("Unknown item id: " + id);
+        }
+        return snapshot[id];
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    private synchronized int register(Item item) {
+        var existing = ids.get(item);
+        if (existing != null) {
+            return existing;
+        }
+        var snapshot = items;
+        if (size == snapshot.length) {
+            snapshot = Arrays.copyOf(snapshot, size * 2);
+        }
+        snapshot[size] = item;
+        items = snapshot;
+        ids.put(item, size); // published after the array slot, so any thread holding the id can read it
+        return size++;
+    }
+}
@@ -0,0 +1,148 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Case-folded trie over item names, used for prefix and typo-tolerant menu search
+public class ItemTrie {
+    private final Node root;
+
+    public ItemTrie() {
+        this.root = new Node();
+    }
+
+    static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    public void insert(Item item) {
+        insert(item.name(), item);
+    }
+
+    // Indexes the item under an arbitrary key, e.g. a single word of its name
+    public void insert(String name, Item item) {
+        var node = root;
+        var key = fold(name);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+        }
+        node.items.add(item);
+    }
+
+    public boolean remove(Item item) {
+        return remove(item.name(), item);
+    }
+
+    public boolean remove(String name, Item item) {
+        return remove(root, fold(name), 0, item);
+    }
+
+    // Every item whose folded name is exactly this key, in insertion order
+    public List<Item> exact(String name) {
+        var node = find(fold(name));
+        return node == null ? List.of() : List.copyOf(node.items);
+    }
+
+    public List<Item> withPrefix(String prefix, int limit) {
+        var results = new ArrayList<Item>();
+        var node = find(fold(prefix));
+        if (node != null) {
+            collect(node, results, limit);
+        }
+        return results;
+    }
+
+    // Walks the trie once, carrying a Levenshtein row per node and pruning branches that cannot match
+    public List<Item> similar(String name, int maxEdits, int limit) {
+        var query = fold(name);
+        var firstRow = new int[query.length() + 1];
+        for (int i = 0; i < firstRow.length; i++) {
+            firstRow[i] = i;
+        }
+        var matches = new ArrayList<Match>();
+        for (var child : root.children.entrySet()) {
+            search(child.getValue(), child.getKey(), query, firstRow, maxEdits, matches);
+        }
+        matches.sort(Comparator.comparingInt(Match::distance));
+        var results = new ArrayList<Item>();
+        for (Match match : matches) {
+            if (results.size() >= limit) {
+                break;
+            }
+            results.add(match.item());
+        }
+        return results;
+    }
+
+    private void search(Node node, char letter, String query, int[] previousRow, int maxEdits, List<Match> matches) {
+        int columns = query.length() + 1;
+        var row = new int[columns];
+        row[0] = previousRow[0] + 1;
+        int rowMin = row[0];
+        for (int i = 1; i < columns; i++) {
+            int cost = query.charAt(i - 1) == letter ? 0 : 1;
+            row[i] = Math.min(Math.min(row[i - 1] + 1, previousRow[i] + 1), previousRow[i - 1] + cost);
+            rowMin = Math.min(rowMin, row[i]);
+        }
+
+        int distance = row[columns - 1];
+        if (distance <= maxEdits) {
+            for (Item item : node.items) {
+                matches.add(new Match(item, distance));
+            }
+        }
+        if (rowMin <= maxEdits) {
+            for (var child : node.children.entrySet()) {
+                search(child.getValue(), child.getKey(), query, row, maxEdits, matches);
+            }
+        }
+    }
+
+    private Node find(String key) {
+        var node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        return node;
+    }
+
+    private void collect(Node node, List<Item> results, int limit) {
+        for (Item item : node.items) {
+            if (results.size() >= limit) {
+                return;
+            }
+            results.add(item);
+        }
+        for (Node child : node.children.values()) {
+            if (results.size() >= limit) {
+                return;
+            }
+            collect(child, results, limit);
+        }
+    }
+
+    private boolean remove(Node node, String key, int depth, Item item) {
+        if (depth == key.length()) {
+            return node.items.remove(item);
+        }
+        var child = node.children.get(key.charAt(depth));
+        if (child == null) {
+            return false;
+        }
+        boolean removed = remove(child, key, depth + 1, item);
+        if (removed && child.items.isEmpty() && child.children.isEmpty()) {
+            node.children.remove(key.charAt(depth)); // prune dead branches
+        }
+        return removed;
+    }
+
+    private record Match(Item item, int distance) {
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new TreeMap<>();
+        private final List<Item> items = new ArrayList<>(1);
+    }
+}
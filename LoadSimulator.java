@@ -0,0 +1,177 @@
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Drives many simulated customers through ORDER_PLACED -> PREPARING -> DISPATCHED -> DELIVERED,
+// one virtual thread per customer and per order, and reports throughput and tail latency.
+public class LoadSimulator {
+
+    public record Config(
+            int customers,
+            int agents,
+            int ordersPerCustomer,
+            long meanArrivalMillis,
+            long meanPrepMillis,
+            long meanTravelMillis
+    ) {
+        public Config {
+            if (customers <= 0 || agents <= 0 || ordersPerCustomer <= 0) {
+                throw new IllegalArgumentException("Customers, agents and orders per customer must be positive");
+            }
+            if (meanArrivalMillis < 0 || meanPrepMillis < 0 || meanTravelMillis < 0) {
+                throw new IllegalArgumentException("Timings cannot be negative");
+            }
+        }
+
+        public static Config defaults() {
+            return new Config(10_000, 2_000, 3, 200, 20, 30);
+        }
+    }
+
+    private final Config config;
+    private final DeliveryManager manager;
+    private final OrderAnalytics analytics;
+    private final AsyncEventSink events;
+    private final List<Item> basket;
+    private final LatencyHistogram createNanos;
+    private final LatencyHistogram assignWaitMillis;
+    private final LatencyHistogram endToEndMillis;
+    private final LongAdder delivered;
+    private final LongAdder failed;
+    private final CountDownLatch finished;
+
+    public LoadSimulator(Config config) {
+        if (config == null) {
+            throw new IllegalArgumentException("Config cannot be null");
+        }
+        this.config = config;
+        this.analytics = new OrderAnalytics();
+        this.events = new AsyncEventSink(analytics); // analytics are kept off the order threads
+        this.manager = new DeliveryManager(events);
+        this.basket = List.of(new Item("Margherita Pizza", 12.99), new Item("Coca Cola", 2.50));
+        this.createNanos = new LatencyHistogram();
+        this.assignWaitMillis = new LatencyHistogram();
+        this.endToEndMillis = new LatencyHistogram();
+        this.delivered = new LongAdder();
+        this.failed = new LongAdder();
+        this.finished = new CountDownLatch(config.customers() * config.ordersPerCustomer());
+        for (int i = 0; i < config.agents(); i++) {
+            manager.addAgent(new DeliveryAgent("Agent " + i, "086" + (1_000_000 + i), "D-" + i, aroundDublin()));
+        }
+    }
+
+    public void run() throws InterruptedException {
+        System.out.println("Simulating " + config.customers() + " customers, " + config.agents() + " agents, "
+                + config.ordersPerCustomer() + " orders each");
+        long start = System.nanoTime();
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < config.customers(); c++) {
+                var customer = new Customer("Customer " + c, "08" + (10_000_000 + c), c + " Load St, Dublin",
+                        aroundDublin());
+                threads.execute(() -> simulateCustomer(customer, threads));
+            }
+            // Customers keep submitting order lifecycles, so wait for every order before closing the executor
+            finished.await();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        events.close();
+        report(elapsedNanos);
+    }
+
+    private void simulateCustomer(Customer customer, ExecutorService threads) {
+        for (int i = 0; i < config.ordersPerCustomer(); i++) {
+            if (!pause(config.meanArrivalMillis())) {
+                for (; i < config.ordersPerCustomer(); i++) {
+                    failed.increment();
+                    finished.countDown();
+                }
+                return;
+            }
+            threads.execute(() -> driveOrder(customer));
+        }
+    }
+
+    private void driveOrder(Customer customer) {
+        long placedAt = System.nanoTime();
+        try {
+            var order = manager.createOrder(customer, basket);
+            createNanos.record(System.nanoTime() - placedAt);
+
+            var agent = manager.assignAgent(order);
+            long backoffMillis = 1;
+            while (agent.isEmpty()) {
+                if (!sleepMillis(backoffMillis)) {
+                    return;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, 50);
+                agent = manager.assignAgent(order);
+            }
+            assignWaitMillis.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - placedAt));
+
+            if (!pause(config.meanPrepMillis())) {
+                return;
+            }
+            manager.updateStatus(order, OrderStatus.DISPATCHED);
+            if (!pause(config.meanTravelMillis())) {
+                return;
+            }
+            manager.completeDelivery(order, agent.get());
+
+            endToEndMillis.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - placedAt));
+            delivered.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    // Somewhere within roughly 10 km of the city centre, so dispatch has real distances to work with
+    private static GeoPoint aroundDublin() {
+        var random = ThreadLocalRandom.current();
+        return new GeoPoint(53.3498 + random.nextDouble(-0.09, 0.09), -6.2603 + random.nextDouble(-0.15, 0.15));
+    }
+
+    // Exponentially distributed pause around the given mean, as for Poisson arrivals
+    private static boolean pause(long meanMillis) {
+        if (meanMillis == 0) {
+            return true;
+        }
+        double sample = -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanMillis;
+        return sleepMillis((long) sample);
+    }
+
+    private static boolean sleepMillis(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("Delivered %d orders in %.2f s (%.0f orders/s), failures: %d%n",
+                delivered.sum(), seconds, delivered.sum() / seconds, failed.sum());
+        System.out.printf("createOrder     p50 %7d ns   p99 %7d ns   p99.9 %7d ns   max %7d ns%n",
+                createNanos.percentile(50), createNanos.percentile(99), createNanos.percentile(99.9), createNanos.max());
+        System.out.printf("agent wait      p50 %7d ms   p99 %7d ms   p99.9 %7d ms   max %7d ms%n",
+                assignWaitMillis.percentile(50), assignWaitMillis.percentile(99),
+                assignWaitMillis.percentile(99.9), assignWaitMillis.max());
+        System.out.printf("placed->deliver p50 %7d ms   p99 %7d ms   p99.9 %7d ms   max %7d ms%n",
+                endToEndMillis.percentile(50), endToEndMillis.percentile(99),
+                endToEndMillis.percentile(99.9), endToEndMillis.max());
+        System.out.println("Active orders left: " + manager.activeOrderCount()
+                + ", completed: " + manager.completedOrderCount());
+        System.out.println("Analytics: " + analytics.deliveredOrders() + " delivered, revenue €"
+                + Money.format(analytics.revenueCents()) + ", top items " + analytics.topItems(3));
+        manager.metrics().snapshot().printTo(System.out);
+        System.out.println("Calls slower than 10 ms: " + manager.metrics().getSlowCallCount());
+    }
+}
@@ -1,11 +1,51 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Main {
 
     public static void main(String[] args) {
         System.out.println("=== Smart Food Delivery Tracker ===\n");
+        if (args.length > 0 && args[0].equals("stress")) {
+            runConcurrencyStressCheck(8, 2_000);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("recovery")) {
+            runRecoveryCheck(4, 1_000);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("load")) {
+            runLoadSimulation(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("api")) {
+            runApiServer(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("apiload")) {
+            runApiLoadTest(args);
+            return;
+        }
         demonstrateBasicFeatures();
         demonstrateAdvancedFeatures();
     }
@@ -82,8 +122,9 @@ public class Main {
 
         // 11. Method Overloading
         System.out.println("\n10. Method Overloading:");
+        manager.assignAgent(order); // PREPARING once an agent has it
         manager.updateStatus(order); // Overloaded version without explicit status
-        manager.updateStatus(order, OrderStatus.PREPARING); // Overloaded with status parameter
+        manager.updateStatus(order, OrderStatus.DISPATCHED); // Overloaded with status parameter
 
         // 12. Exceptions (checked and unchecked)
         System.out.println("\n11. Exception Handling:");
@@ -99,6 +140,12 @@ public class Main {
             System.out.println("Caught exception: " + e.getMessage());
         }
 
+        try {
+            manager.updateStatus(order, OrderStatus.ORDER_PLACED); // orders never move backwards
+        } catch (IllegalStateException e) {
+            System.out.println("Caught exception: " + e.getMessage());
+        }
+
         // 13. Java Core API - String, StringBuilder, List, ArrayList
         System.out.println("\n12. Java Core API usage:");
         String customerName = customer1.name().toUpperCase();
@@ -125,8 +172,26 @@ public class Main {
     private static void demonstrateAdvancedFeatures() {
         System.out.println("\n\n--- DEMONSTRATING ADVANCED FEATURES ---\n");
 
-        var manager = new DeliveryManager();
-        var menu = new Menu();
+        var analytics = new OrderAnalytics();
+        var etas = new EtaTracker(new EtaTracker.Listener() {
+            @Override
+            public void overdue(Order order, long lateMillis) {
+                System.out.println("Order #" + order.id() + " is overdue");
+            }
+
+            @Override
+            public void escalate(Order order, int level, long lateMillis) {
+                System.out.println("Order #" + order.id() + " escalated to level " + level);
+            }
+        });
+        etas.start();
+        var stream = new OrderEventPublisher();
+        var transitions = new AtomicInteger();
+        var transitionsDone = stream.subscribeToTransitions(event -> transitions.incrementAndGet());
+        // Subscribers run on the sink's own thread; flush() wherever the demo reads what they saw
+        var events = new AsyncEventSink(OrderEventSink.fanOut(new ConsoleEventSink(), analytics, etas, stream));
+        var manager = new DeliveryManager(events);
+        var menu = new Menu(manager.metrics());
         var customer = new Customer("Alice Brown", "0851234567", "456 Oak Ave, Cork");
         var agent = new DeliveryAgent("Tom Wilson", "0862345678", "D-789-AB");
         manager.addAgent(agent);
@@ -139,6 +204,7 @@ public class Main {
 
         var items = List.of(pizza, new Item("Salad", 8.99));
         var order = manager.createOrder(customer, items);
+        events.flush();
 
         // 2. Custom Immutable Type (Order record with defensive copying)
         System.out.println("\n2. Custom Immutable Type (Order with defensive copying):");
@@ -146,6 +212,7 @@ public class Main {
         var originalItems = new ArrayList<Item>();
         originalItems.add(menu.findItemByName("Burger"));
         var order2 = manager.createOrder(customer, originalItems);
+        events.flush();
         originalItems.add(new Item("Extra item", 5.0)); // Doesn't affect order2
         System.out.println("Order2 items count: " + order2.items().size() + " (unchanged)");
 
@@ -153,7 +220,7 @@ public class Main {
         System.out.println("\n3. Sealed Classes (User permits Customer, DeliveryAgent):");
         User user = customer;
         if (order instanceof Order(var id, var c, var itms, var price, var status, var time, var orderTime)) {
-            System.out.println("Record pattern matching: Order #" + id + " for " + c.name() + ": €" + price);
+            System.out.println("Record pattern matching: Order #" + id + " for " + c.name() + ": €" + Money.format(price));
         }
 
         // 4. Switch Expressions
@@ -176,7 +243,7 @@ public class Main {
         // Record patterns
         System.out.println("\n6. Record Pattern Matching:");
         if (order instanceof Order(var id, var c, var itms, var price, var status, var time, var orderTime)) {
-            System.out.println("Deconstructed order #" + id + " for " + c.name() + ": €" + price);
+            System.out.println("Deconstructed order #" + id + " for " + c.name() + ": €" + Money.format(price));
         }
 
         // 6. Lambdas and Predicates
@@ -231,9 +298,387 @@ public class Main {
         System.out.println("\n\n--- COMPLETE ORDER FLOW ---");
         manager.assignAgent(order);
         manager.updateStatus(order, OrderStatus.DISPATCHED);
+        events.flush();
+        etas.etaMillis(order.id()).ifPresent(eta -> System.out.println("ETA once dispatched: "
+                + LocalDateTime.ofInstant(Instant.ofEpochMilli(eta), ZoneId.systemDefault()).format(DateTimeFormatter.ofPattern("HH:mm"))));
         manager.completeDelivery(order, agent);
+        events.flush();
         System.out.println("\nActive orders: " + manager.viewActiveOrders().size());
         System.out.println("Completed orders: " + manager.viewCompletedOrders().size());
+
+        System.out.println("\n--- CUSTOMER HISTORY ---");
+        var samePerson = manager.customers().register("Alice Brown", "+353 85 123 4567", "456 Oak Ave, Cork");
+        System.out.println("Same customer for +353 85 123 4567: " + (samePerson == customer));
+        manager.orderHistory("085-123-4567").forEach(past ->
+                System.out.println("#" + past.id() + " " + past.status() + " €" + Money.format(past.totalCents())));
+        var again = manager.reorder("0851234567");
+        events.close(); // everything published has reached the subscribers
+        System.out.println("Reordered as #" + again.id() + ": " + again.items().size() + " items, €"
+                + Money.format(again.totalCents()));
+
+        System.out.println("\n--- LIVE ANALYTICS ---");
+        for (OrderStatus status : OrderStatus.values()) {
+            System.out.println(status + ": " + analytics.ordersInStatus(status));
+        }
+        System.out.println("Revenue: €" + Money.format(analytics.revenueCents())
+                + ", average ticket: €" + Money.format(analytics.averageTicketCents()));
+        System.out.println("Top items: " + analytics.topItems(3));
+        System.out.println("Orders still tracked for ETA: " + etas.trackedCount());
+        etas.close();
+        stream.close();
+        transitionsDone.join();
+        System.out.println("Status transitions seen by the stream subscriber: " + transitions.get());
+
+        System.out.println("\n--- HOT PATH METRICS ---");
+        manager.metrics().snapshot().printTo(System.out);
+
+        demonstrateBatchMatching();
+        demonstrateSharding();
+    }
+
+    private static void demonstrateBatchMatching() {
+        System.out.println("\n--- BATCH MATCHING ---");
+        var manager = new DeliveryManager(OrderEventSink.noOp());
+        manager.addAgent(new DeliveryAgent("Cian Walsh", "0861111111", "D-101", new GeoPoint(51.8960, -8.4700), 2));
+        manager.addAgent(new DeliveryAgent("Aoife Ryan", "0862222222", "D-102", new GeoPoint(51.9030, -8.4950), 2));
+        manager.addAgent(new DeliveryAgent("Sean Byrne", "0863333333", "D-103", new GeoPoint(51.8900, -8.4400)));
+        var addresses = List.of(
+                new GeoPoint(51.8990, -8.4720), new GeoPoint(51.8950, -8.4450), new GeoPoint(51.9040, -8.4900),
+                new GeoPoint(51.9010, -8.4800), new GeoPoint(51.8920, -8.4600));
+        for (int i = 0; i < addresses.size(); i++) {
+            var customer = new Customer("Customer " + (i + 1), "08500000" + i, (i + 1) + " Quay St, Cork", addresses.get(i));
+            manager.createOrder(customer, List.of(new Item("Pizza", 12.99)));
+        }
+        var matcher = new BatchMatcher(manager);
+        for (Order order : matcher.matchNow()) {
+            System.out.println("Order #" + order.id() + " -> " + manager.assignedAgent(order.id()).orElseThrow().name());
+        }
+        var stats = matcher.stats();
+        System.out.printf("Pickup minutes: batch %.1f vs greedy %.1f (%.1f%% better)%n",
+                stats.optimalMinutes(), stats.greedyMinutes(), stats.improvementPercent());
+    }
+
+    // Places orders in two zones, then moves a spare agent to the zone left without one
+    private static void demonstrateSharding() {
+        System.out.println("\n--- ZONE SHARDING ---");
+        var zones = List.of(ShardedDeliveryManager.Zone.of("Dublin"), ShardedDeliveryManager.Zone.of("Cork"),
+                ShardedDeliveryManager.Zone.of("Galway"));
+        try (var sharded = new ShardedDeliveryManager(zones)) {
+            sharded.addAgent(new DeliveryAgent("Niamh Doyle", "0864444444", "D-201", new GeoPoint(53.3440, -6.2670)));
+            sharded.addAgent(new DeliveryAgent("Conor Kelly", "0865555555", "D-202", new GeoPoint(53.3560, -6.2500)));
+            sharded.addAgent(new DeliveryAgent("Ciara Nolan", "0866666666", "D-203", new GeoPoint(51.8970, -8.4700)));
+            var pizza = List.of(new Item("Pizza", 12.99));
+            var dublin = sharded.createOrder(new Customer("Emma Byrne", "0851000001", "3 Abbey St, Dublin"), pizza);
+            var galway = sharded.createOrder(new Customer("Liam Burke", "0851000002", "8 Shop St, Galway"), pizza);
+            for (Order order : List.of(dublin, galway)) {
+                System.out.println("Order #" + order.id() + " -> " + sharded.zoneOf(order.id()).name() + " zone, agent: "
+                        + sharded.assignAgent(order).map(User::name).orElse("none free"));
+            }
+            System.out.println("Agents moved between zones: " + sharded.rebalanceAgents());
+            System.out.println("Order #" + galway.id() + " agent: "
+                    + sharded.assignAgent(galway).map(User::name).orElse("none free"));
+            sharded.displayOrdersByStatus(OrderStatus.PREPARING);
+        }
+    }
+
+    // Drives the full order lifecycle from many threads and checks that nothing is lost or double-assigned
+    private static void runConcurrencyStressCheck(int threads, int ordersPerThread) {
+        var manager = new DeliveryManager(OrderEventSink.noOp());
+        var customer = new Customer("Stress Tester", "0800000000", "1 Load St, Dublin");
+        var items = List.of(new Item("Pizza", 12.99), new Item("Coca Cola", 2.50));
+        for (int i = 0; i < threads / 2; i++) {
+            manager.addAgent(new DeliveryAgent("Agent " + i, "086000000" + i, "D-" + i));
+        }
+
+        Set<Integer> orderIds = ConcurrentHashMap.newKeySet();
+        Map<DeliveryAgent, Integer> agentHolders = new ConcurrentHashMap<>();
+        var doubleAssignments = new AtomicInteger();
+        var bypasses = new AtomicInteger();
+        var failures = new AtomicInteger();
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                pool.execute(() -> {
+                    for (int i = 0; i < ordersPerThread; i++) {
+                        try {
+                            var order = manager.createOrder(customer, items);
+                            orderIds.add(order.id());
+                            // Neither PREPARING without an agent nor DELIVERED outside completeDelivery
+                            expectRejected(() -> manager.updateStatus(order, OrderStatus.PREPARING), bypasses);
+                            var agent = manager.assignAgent(order);
+                            while (agent.isEmpty()) {
+                                Thread.onSpinWait();
+                                agent = manager.assignAgent(order);
+                            }
+                            if (agentHolders.putIfAbsent(agent.get(), order.id()) != null) {
+                                doubleAssignments.incrementAndGet();
+                            }
+                            manager.updateStatus(order, OrderStatus.DISPATCHED);
+                            expectRejected(() -> manager.updateStatus(order, OrderStatus.DELIVERED), bypasses);
+                            expectRejected(() -> manager.updateStatus(order), bypasses);
+                            agentHolders.remove(agent.get(), order.id());
+                            manager.completeDelivery(order, agent.get());
+                        } catch (RuntimeException e) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                });
+            }
+            pool.shutdown();
+            pool.awaitTermination(5, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        int expected = threads * ordersPerThread;
+        System.out.println("Threads: " + threads + ", orders: " + expected + ", time: " + elapsedMillis + " ms");
+        System.out.println("Unique order ids: " + orderIds.size());
+        System.out.println("Active orders left: " + manager.activeOrderCount());
+        System.out.println("Completed orders: " + manager.completedOrderCount());
+        System.out.println("Double assignments: " + doubleAssignments.get() + ", lifecycle steps let through: "
+                + bypasses.get() + ", failures: " + failures.get());
+
+        // Page through the archive the way a dashboard would, and cross-check a parallel scan
+        int paged = 0;
+        var page = manager.completedOrdersPage(OrderPage.FIRST, 500);
+        paged += page.orders().size();
+        while (page.hasMore()) {
+            page = manager.completedOrdersPage(page.nextCursor(), 500);
+            paged += page.orders().size();
+        }
+        long scannedRevenue = manager.streamCompletedOrders().parallel().mapToLong(Order::totalCents).sum();
+        System.out.println("Completed orders paged: " + paged + ", revenue scanned in parallel: €"
+                + Money.format(scannedRevenue));
+        var history = manager.orderHistory(customer.phone());
+        boolean historyComplete = history.size() == expected
+                && history.stream().allMatch(order -> order.status() == OrderStatus.DELIVERED);
+        System.out.println("Orders in the customer's history: " + history.size());
+
+        boolean passed = orderIds.size() == expected
+                && manager.activeOrderCount() == 0
+                && manager.completedOrderCount() == expected
+                && paged == expected
+                && scannedRevenue == manager.completedRevenueCents()
+                && historyComplete
+                && doubleAssignments.get() == 0
+                && bypasses.get() == 0
+                && failures.get() == 0;
+        System.out.println(passed ? "Stress check PASSED" : "Stress check FAILED");
+    }
+
+    private static void expectRejected(Runnable update, AtomicInteger letThrough) {
+        try {
+            update.run();
+            letThrough.incrementAndGet();
+        } catch (IllegalStateException expected) {
+            // the order is left as it was
+        }
+    }
+
+    private record RecoveredView(Map<Integer, String> active, List<Integer> completed, long revenueCents, int nextOrderId) {
+        static RecoveredView of(DeliveryManager manager) {
+            var active = new HashMap<Integer, String>();
+            for (Order order : manager.viewActiveOrders()) {
+                active.put(order.id(), order.status() + manager.assignedAgent(order.id()).map(agent -> " " + agent.phone()).orElse(""));
+            }
+            var completed = manager.streamCompletedOrders().map(Order::id).sorted().toList();
+            return new RecoveredView(active, completed, manager.completedRevenueCents(), manager.peekNextOrderId());
+        }
+    }
+
+    // Drives a journaled manager from several threads, with a second thread racing each worker's
+    // status changes and a snapshot taken halfway, then reopens the journal into a fresh manager and
+    // checks that every order comes back in the state it was left in
+    private static void runRecoveryCheck(int workers, int ordersPerWorker) {
+        Path directory;
+        try {
+            directory = Files.createTempDirectory("order-journal");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        var items = List.of(new Item("Pizza", 12.99), new Item("Coca Cola", 2.50));
+        var failures = new AtomicInteger();
+        try {
+            RecoveredView before;
+            try (var journal = OrderJournal.open(directory, false)) {
+                var manager = new DeliveryManager(journal);
+                addRecoveryAgents(manager);
+                var created = new AtomicInteger();
+                ExecutorService pool = Executors.newFixedThreadPool(workers * 2);
+                for (int w = 0; w < workers; w++) {
+                    var customer = new Customer("Journal Tester " + w, "08100000" + w, w + " Log St, Dublin");
+                    BlockingQueue<Order> racing = new LinkedBlockingQueue<>();
+                    pool.execute(() -> {
+                        for (int i = 0; i < ordersPerWorker; i++) {
+                            try {
+                                var order = manager.createOrder(customer, items);
+                                created.incrementAndGet();
+                                switch (i % 4) {
+                                    case 0 -> { } // left waiting
+                                    case 1 -> manager.assignAgent(order).orElseThrow();
+                                    case 2 -> {
+                                        racing.add(order); // the racer dispatches it as soon as it is assigned
+                                        manager.assignAgent(order).orElseThrow();
+                                    }
+                                    default -> {
+                                        var agent = manager.assignAgent(order).orElseThrow();
+                                        manager.updateStatus(order, OrderStatus.DISPATCHED);
+                                        manager.completeDelivery(order, agent);
+                                    }
+                                }
+                            } catch (RuntimeException e) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                    });
+                    pool.execute(() -> {
+                        try {
+                            for (int i = 2; i < ordersPerWorker; i += 4) {
+                                var order = racing.take();
+                                while (true) {
+                                    try {
+                                        manager.updateStatus(order, OrderStatus.DISPATCHED);
+                                        break;
+                                    } catch (IllegalStateException stillPlaced) {
+                                        Thread.onSpinWait();
+                                    }
+                                }
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    });
+                }
+                while (created.get() < workers * ordersPerWorker / 2) {
+                    Thread.onSpinWait();
+                }
+                journal.snapshot(manager);
+                pool.shutdown();
+                pool.awaitTermination(5, TimeUnit.MINUTES);
+                before = RecoveredView.of(manager);
+            }
+
+            RecoveredView after;
+            try (var journal = OrderJournal.open(directory, false)) {
+                var recovered = new DeliveryManager(OrderEventSink.noOp());
+                addRecoveryAgents(recovered);
+                recovered.restore(journal.recoveredState());
+                after = RecoveredView.of(recovered);
+            }
+
+            System.out.println("Orders: " + workers * ordersPerWorker + ", failures: " + failures.get());
+            System.out.println("Active orders: " + before.active().size() + " written, " + after.active().size() + " recovered");
+            System.out.println("Completed orders: " + before.completed().size() + " written, " + after.completed().size() + " recovered");
+            long mismatched = before.active().entrySet().stream()
+                    .filter(entry -> !entry.getValue().equals(after.active().get(entry.getKey())))
+                    .count();
+            System.out.println("Active orders recovered in another state: " + mismatched);
+            boolean passed = failures.get() == 0 && before.equals(after);
+            System.out.println(passed ? "Recovery check PASSED" : "Recovery check FAILED");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    // Restore matches assignments to agents by phone, so both managers get agents with the same phones
+    private static void addRecoveryAgents(DeliveryManager manager) {
+        for (int i = 0; i < 4; i++) {
+            manager.addAgent(new DeliveryAgent("Agent " + i, "086200000" + i, "D-" + i, null, 1_000));
+        }
+    }
+
+    private static void deleteDirectory(Path directory) {
+        try (var files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not delete " + directory + ": " + e.getMessage());
+        }
+    }
+
+    // java Main load [customers] [agents] [ordersPerCustomer] [arrivalMs] [prepMs] [travelMs]
+    private static void runLoadSimulation(String[] args) {
+        var defaults = LoadSimulator.Config.defaults();
+        var config = new LoadSimulator.Config(
+                args.length > 1 ? Integer.parseInt(args[1]) : defaults.customers(),
+                args.length > 2 ? Integer.parseInt(args[2]) : defaults.agents(),
+                args.length > 3 ? Integer.parseInt(args[3]) : defaults.ordersPerCustomer(),
+                args.length > 4 ? Long.parseLong(args[4]) : defaults.meanArrivalMillis(),
+                args.length > 5 ? Long.parseLong(args[5]) : defaults.meanPrepMillis(),
+                args.length > 6 ? Long.parseLong(args[6]) : defaults.meanTravelMillis()
+        );
+        try {
+            new LoadSimulator(config).run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Load simulation interrupted");
+        }
+    }
+
+    // java Main api [port] [agents]: serves until the process is stopped
+    private static void runApiServer(String[] args) {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        int agents = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        enableHttpNoDelay();
+        // Logs every order event to the console without making requests wait for it
+        var manager = new DeliveryManager(new AsyncEventSink(new ConsoleEventSink()));
+        for (int i = 0; i < agents; i++) {
+            manager.addAgent(new DeliveryAgent("Agent " + i, "086" + (1_000_000 + i), "D-" + i));
+        }
+        try {
+            var server = new OrderApiServer(manager, new Menu(manager.metrics()), port);
+            server.start();
+            var mbean = manager.metrics().registerMBean("api-" + server.port());
+            System.out.println("Order API listening on http://localhost:" + server.port() + "/ (try GET /menu)");
+            System.out.println("Metrics are in JConsole or VisualVM as " + mbean);
+        } catch (IOException e) {
+            System.out.println("Could not start the order API: " + e.getMessage());
+        }
+    }
+
+    // java Main apiload [clients] [ordersPerClient] [batchSize] [agents]: server and load test in one process
+    private static void runApiLoadTest(String[] args) {
+        var defaults = OrderApiLoadTest.Config.defaults();
+        var config = new OrderApiLoadTest.Config(
+                args.length > 1 ? Integer.parseInt(args[1]) : defaults.clients(),
+                args.length > 2 ? Integer.parseInt(args[2]) : defaults.ordersPerClient(),
+                args.length > 3 ? Integer.parseInt(args[3]) : defaults.batchSize()
+        );
+        int agents = args.length > 4 ? Integer.parseInt(args[4]) : config.clients();
+        enableHttpNoDelay();
+        var analytics = new OrderAnalytics();
+        var events = new AsyncEventSink(analytics);
+        var manager = new DeliveryManager(events);
+        for (int i = 0; i < agents; i++) {
+            manager.addAgent(new DeliveryAgent("Agent " + i, "086" + (1_000_000 + i), "D-" + i));
+        }
+        try (var server = new OrderApiServer(manager, new Menu(manager.metrics()), 0)) {
+            server.start();
+            new OrderApiLoadTest(URI.create("http://localhost:" + server.port() + "/"), config).run();
+            System.out.println("Active orders left: " + manager.activeOrderCount()
+                    + ", delivered: " + manager.completedOrderCount());
+            events.close();
+            System.out.println("Analytics: revenue €" + Money.format(analytics.revenueCents())
+                    + ", top items " + analytics.topItems(3));
+        } catch (IOException e) {
+            System.out.println("Could not start the order API: " + e.getMessage());
+        }
+    }
+
+    // Without TCP_NODELAY a keep-alive client waiting on a delayed ACK stalls about 40 ms per response.
+    // The JDK server reads this once, when the first server is created, so it is set before that.
+    private static void enableHttpNoDelay() {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
     }
 
     private static void runInteractiveDemo() {
@@ -279,7 +724,17 @@ public class Main {
         System.out.print("Enter address: ");
         String address = scanner.nextLine();
 
-        var customer = new Customer(name, phone, address);
+        var customer = manager.customers().register(name, phone, address);
+        int previousOrders = manager.customers().orderCount(phone);
+        if (previousOrders > 0) {
+            System.out.println("Welcome back, " + customer.name() + " (" + previousOrders + " previous orders)");
+            System.out.print("Repeat your last order? (y/n): ");
+            if (scanner.nextLine().strip().equalsIgnoreCase("y")) {
+                var order = manager.reorder(phone);
+                manager.assignAgent(order);
+                return;
+            }
+        }
         var items = new ArrayList<Item>();
 
         menu.displayMenu();
@@ -294,7 +749,13 @@ public class Main {
                 items.add(item);
                 System.out.println("Added: " + item);
             } else {
-                System.out.println("Item not found");
+                var suggestions = menu.suggestItems(itemName);
+                if (suggestions.isEmpty()) {
+                    System.out.println("Item not found");
+                } else {
+                    System.out.println("Item not found. Did you mean: "
+                            + String.join(", ", suggestions.stream().map(Item::name).toList()) + "?");
+                }
             }
         }
 
@@ -307,12 +768,15 @@ public class Main {
     }
 
     private static void displayActiveOrders(DeliveryManager manager) {
-        var orders = manager.viewActiveOrders();
-        if (orders.isEmpty()) {
+        var page = manager.activeOrdersPage(OrderPage.FIRST, 20);
+        if (page.orders().isEmpty()) {
             System.out.println("No active orders");
         } else {
             System.out.println("\n=== Active Orders ===");
-            orders.forEach(System.out::println);
+            page.orders().forEach(System.out::println);
+            if (page.hasMore()) {
+                System.out.println("... and " + (manager.activeOrderCount() - page.orders().size()) + " more");
+            }
         }
     }
 
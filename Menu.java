@@ -1,11 +1,39 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 public class Menu {
+    private static final int MAX_SUGGESTIONS = 5;
+
     private final List<Item> items;
+    private final Map<String, Item> itemsByName;
+    private final ItemTrie nameIndex;
+    private final ItemTrie wordIndex;
+    private final TreeMap<Long, List<Item>> priceIndex;
+    private final DeliveryMetrics metrics;
 
     public Menu() {
+        this(DeliveryMetrics.disabled());
+    }
+
+    // Lookups are timed into the given metrics, usually the manager's
+    public Menu(DeliveryMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics cannot be null");
+        }
+        this.metrics = metrics;
         this.items = new ArrayList<>();
+        this.itemsByName = new HashMap<>();
+        this.nameIndex = new ItemTrie();
+        this.wordIndex = new ItemTrie();
+        this.priceIndex = new TreeMap<>();
         initializeDefaultMenu();
     }
 
@@ -28,28 +56,164 @@ public class Menu {
         }
     }
 
+    // Bulk import: checked in full first so a null leaves the menu untouched. Items are displayed in
+    // the order given, while the price index is built from one parallel sort by price, merged in a
+    // single step per distinct price instead of one tree lookup per item.
+    public void loadItems(Collection<Item> newItems) {
+        if (newItems == null) {
+            throw new IllegalArgumentException("Items cannot be null");
+        }
+        var byPrice = newItems.toArray(Item[]::new);
+        for (Item item : byPrice) {
+            if (item == null) {
+                throw new IllegalArgumentException("Item cannot be null");
+            }
+        }
+        for (Item item : byPrice) {
+            items.add(item);
+            indexByName(item);
+        }
+        Arrays.parallelSort(byPrice, Comparator.comparingLong(Item::priceCents)); // stable: same-price items keep their order
+        int runStart = 0;
+        while (runStart < byPrice.length) {
+            long price = byPrice[runStart].priceCents();
+            int runEnd = runStart + 1;
+            while (runEnd < byPrice.length && byPrice[runEnd].priceCents() == price) {
+                runEnd++;
+            }
+            var samePrice = Arrays.asList(byPrice).subList(runStart, runEnd);
+            priceIndex.computeIfAbsent(price, key -> new ArrayList<>(samePrice.size())).addAll(samePrice);
+            runStart = runEnd;
+        }
+    }
+
     public void addItem(Item item) {
         if (item == null) {
             throw new IllegalArgumentException("Item cannot be null");
         }
         items.add(item);
+        indexByName(item);
+        priceIndex.computeIfAbsent(item.priceCents(), price -> new ArrayList<>(1)).add(item);
+    }
+
+    private void indexByName(Item item) {
+        itemsByName.putIfAbsent(ItemTrie.fold(item.name()), item);
+        nameIndex.insert(item);
+        for (String word : laterWords(item)) {
+            wordIndex.insert(word, item);
+        }
     }
 
     public void removeItem(Item item) {
-        items.remove(item);
+        if (item == null || !items.remove(item)) {
+            return;
+        }
+        nameIndex.remove(item);
+        var samePrice = priceIndex.get(item.priceCents());
+        samePrice.remove(item);
+        if (samePrice.isEmpty()) {
+            priceIndex.remove(item.priceCents());
+        }
+        for (String word : laterWords(item)) {
+            wordIndex.remove(word, item);
+        }
+        var key = ItemTrie.fold(item.name());
+        if (item.equals(itemsByName.get(key))) {
+            // Fall back to the next item with the same name, as the old linear search would have
+            var remaining = nameIndex.exact(item.name());
+            if (remaining.isEmpty()) {
+                itemsByName.remove(key);
+            } else {
+                itemsByName.put(key, remaining.get(0));
+            }
+        }
     }
 
     public Item findItemByName(String name) {
-        return items.stream()
-                .filter(item -> item.name().equalsIgnoreCase(name))
-                .findFirst()
-                .orElse(null);
+        long start = metrics.start();
+        try {
+            if (name == null) {
+                return null;
+            }
+            return itemsByName.get(ItemTrie.fold(name));
+        } finally {
+            metrics.record(DeliveryMetrics.Operation.MENU_FIND_BY_NAME, start);
+        }
+    }
+
+    public List<Item> findItemsByPrefix(String prefix) {
+        long start = metrics.start();
+        try {
+            if (prefix == null || prefix.isBlank()) {
+                return List.of();
+            }
+            var matches = new LinkedHashSet<Item>(nameIndex.withPrefix(prefix, Integer.MAX_VALUE));
+            matches.addAll(wordIndex.withPrefix(prefix, Integer.MAX_VALUE));
+            return List.copyOf(matches);
+        } finally {
+            metrics.record(DeliveryMetrics.Operation.MENU_FIND_BY_PREFIX, start);
+        }
+    }
+
+    // Prefix matches first, then names within a couple of typos
+    public List<Item> suggestItems(String name) {
+        long start = metrics.start();
+        try {
+            if (name == null || name.isBlank()) {
+                return List.of();
+            }
+            var suggestions = new LinkedHashSet<Item>(findItemsByPrefix(name));
+            int maxEdits = name.length() <= 4 ? 1 : 2;
+            suggestions.addAll(nameIndex.similar(name, maxEdits, MAX_SUGGESTIONS));
+            suggestions.addAll(wordIndex.similar(name, maxEdits, MAX_SUGGESTIONS));
+            return suggestions.stream().limit(MAX_SUGGESTIONS).toList();
+        } finally {
+            metrics.record(DeliveryMetrics.Operation.MENU_SUGGEST, start);
+        }
     }
 
+    // "Pepperoni Pizza" is also findable as "pizza"; the first word is already covered by the name index
+    private static List<String> laterWords(Item item) {
+        var words = item.name().trim().split("\\s+");
+        return words.length <= 1 ? List.of() : List.of(words).subList(1, words.length);
+    }
+
+    // Results come back cheapest first
     public List<Item> findItemsByPriceRange(double minPrice, double maxPrice) {
-        return items.stream()
-                .filter(item -> item.price() >= minPrice && item.price() <= maxPrice)
-                .toList();
+        return findItemsByPriceRangeCents(Money.ofEuros(minPrice), Money.ofEuros(maxPrice));
+    }
+
+    public List<Item> findItemsByPriceRangeCents(long minCents, long maxCents) {
+        long start = metrics.start();
+        try {
+            if (minCents > maxCents) {
+                return List.of();
+            }
+            return flatten(priceIndex.subMap(minCents, true, maxCents, true), Integer.MAX_VALUE);
+        } finally {
+            metrics.record(DeliveryMetrics.Operation.MENU_PRICE_RANGE, start);
+        }
+    }
+
+    public List<Item> findCheapestItems(int count) {
+        return flatten(priceIndex, count);
+    }
+
+    public List<Item> findMostExpensiveItems(int count) {
+        return flatten(priceIndex.descendingMap(), count);
+    }
+
+    private static List<Item> flatten(NavigableMap<Long, List<Item>> prices, int limit) {
+        var results = new ArrayList<Item>();
+        for (List<Item> samePrice : prices.values()) {
+            for (Item item : samePrice) {
+                if (results.size() >= limit) {
+                    return results;
+                }
+                results.add(item);
+            }
+        }
+        return results;
     }
 
     public List<Item> viewAllItems() {
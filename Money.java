@@ -0,0 +1,83 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+// Money is kept as a primitive long count of euro cents, so sums and comparisons are exact and allocation-free
+public final class Money {
+    public static final long CENTS_PER_EURO = 100;
+
+    private Money() {
+    }
+
+    public static long ofEuros(double euros) {
+        if (!Double.isFinite(euros) || Math.abs(euros) >= Long.MAX_VALUE / CENTS_PER_EURO) {
+            throw new IllegalArgumentException("Invalid euro amount: " + euros);
+        }
+        return Math.round(euros * CENTS_PER_EURO);
+    }
+
+    public static double toEuros(long cents) {
+        return cents / (double) CENTS_PER_EURO;
+    }
+
+    // Parses "12.99", "12.9" or "12" exactly, without a detour through double
+    public static long parse(String euros) {
+        if (euros == null || euros.isBlank()) {
+            throw new IllegalArgumentException("Amount cannot be null or empty");
+        }
+        var text = euros.strip();
+        boolean negative = text.startsWith("-");
+        int start = negative ? 1 : 0;
+        int dot = text.indexOf('.');
+        int end = dot < 0 ? text.length() : dot;
+        if (end == start || (dot >= 0 && text.length() - dot - 1 > 2)) {
+            throw new IllegalArgumentException("Invalid euro amount: " + euros);
+        }
+        try {
+            long cents = Math.multiplyExact(Long.parseLong(text.substring(start, end)), CENTS_PER_EURO);
+            if (dot >= 0 && dot + 1 < text.length()) {
+                var fraction = text.substring(dot + 1);
+                if (!Character.isDigit(fraction.charAt(0))) {
+                    throw new IllegalArgumentException("Invalid euro amount: " + euros);
+                }
+                cents += Integer.parseInt(fraction) * (fraction.length() == 1 ? 10 : 1);
+            }
+            return negative ? -cents : cents;
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid euro amount: " + euros);
+        }
+    }
+
+    public static long total(List<Item> items) {
+        long total = 0;
+        for (int i = 0, size = items.size(); i < size; i++) {
+            total = Math.addExact(total, items.get(i).priceCents());
+        }
+        return total;
+    }
+
+    public static String format(long cents) {
+        var text = new StringBuilder(12);
+        appendTo(text, cents);
+        return text.toString();
+    }
+
+    public static void appendTo(StringBuilder out, long cents) {
+        try {
+            appendTo((Appendable) out, cents);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
+        }
+    }
+
+    // Two decimals, e.g. 1299 -> "12.99", without String.format
+    public static void appendTo(Appendable out, long cents) throws IOException {
+        if (cents < 0) {
+            out.append('-');
+        }
+        long euros = Math.abs(cents / CENTS_PER_EURO);
+        long fraction = Math.abs(cents % CENTS_PER_EURO);
+        out.append(Long.toString(euros)).append('.');
+        out.append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+    }
+}
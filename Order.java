@@ -1,3 +1,4 @@
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -5,51 +6,70 @@ import java.util.List;
 public record Order(
         int id,
         Customer customer,
-        List<Item> items,
-        double totalPrice,
+        OrderLines lines,
+        long totalCents,
         OrderStatus status,
         int estimatedTimeMinutes,
         LocalDateTime orderTime
 ) {
+    private static final DateTimeFormatter ORDER_TIME_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
     public Order {
         if (customer == null) {
             throw new IllegalArgumentException("Customer cannot be null");
         }
-        if (items == null || items.isEmpty()) {
+        if (lines == null) {
             throw new IllegalArgumentException("Order must contain at least one item");
         }
-        if (totalPrice <= 0) {
+        if (totalCents <= 0) {
             throw new IllegalArgumentException("Total price must be positive");
         }
         if (estimatedTimeMinutes <= 0) {
             throw new IllegalArgumentException("Estimated time must be positive");
         }
 
-        items = List.copyOf(items);
-
         if (orderTime == null) {
             orderTime = LocalDateTime.now();
         }
     }
 
-    public Order(int id, Customer customer, List<Item> items, double totalPrice, OrderStatus status) {
-        this(id, customer, items, totalPrice, status, 30, LocalDateTime.now());
+    public Order(int id, Customer customer, List<Item> items, long totalCents, OrderStatus status,
+                 int estimatedTimeMinutes, LocalDateTime orderTime) {
+        this(id, customer, OrderLines.of(items), totalCents, status, estimatedTimeMinutes, orderTime);
+    }
+
+    public Order(int id, Customer customer, List<Item> items, long totalCents, OrderStatus status) {
+        this(id, customer, items, totalCents, status, 30, LocalDateTime.now());
+    }
+
+    public static int estimateDeliveryMinutes(int itemCount) {
+        return itemCount > 10 ? 60 : itemCount > 5 ? 45 : 30;
+    }
+
+    public List<Item> items() {
+        return lines.items();
+    }
+
+    public double totalPrice() {
+        return Money.toEuros(totalCents);
     }
 
     public Order withStatus(OrderStatus newStatus) {
-        return new Order(this.id, this.customer, this.items, this.totalPrice,
+        return new Order(this.id, this.customer, this.lines, this.totalCents,
                 newStatus, this.estimatedTimeMinutes, this.orderTime);
     }
 
     public Order withEstimatedTime(int minutes) {
-        return new Order(this.id, this.customer, this.items, this.totalPrice,
+        return new Order(this.id, this.customer, this.lines, this.totalCents,
                 this.status, minutes, this.orderTime);
     }
 
     public String getFormattedOrderTime() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-        return orderTime.format(formatter);
+        return ORDER_TIME_FORMAT.format(orderTime);
+    }
+
+    public void formatOrderTimeTo(Appendable out) throws IOException {
+        ORDER_TIME_FORMAT.formatTo(orderTime, out);
     }
 
     @Override
@@ -62,10 +82,12 @@ public record Order(
         sb.append("Order Time: ").append(getFormattedOrderTime()).append("\n");
         sb.append("Estimated Delivery: ").append(estimatedTimeMinutes).append(" minutes\n");
         sb.append("Items:\n");
-        for (Item item : items) {
+        for (Item item : lines.items()) {
             sb.append("  - ").append(item).append("\n");
         }
-        sb.append("Total: €").append(String.format("%.2f", totalPrice)).append("\n");
+        sb.append("Total: €");
+        Money.appendTo(sb, totalCents);
+        sb.append("\n");
         return sb.toString();
     }
 }
\ No newline at end of file
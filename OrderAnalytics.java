@@ -0,0 +1,102 @@
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Running dashboard numbers, updated from order events as they happen. Every read is O(1)
+// in the amount of order history.
+public class OrderAnalytics implements OrderEventSink {
+    private static final int TRACKED_ITEMS = 256;
+
+    private final AtomicLongArray statusCounts;
+    private final LongAdder revenueCents;
+    private final LongAdder deliveredOrders;
+    private final TopItemsSketch topItems;
+    private final LatencyHistogram deliveryMillis;
+
+    public record Snapshot(
+            Map<OrderStatus, Long> ordersByStatus,
+            long deliveredOrders,
+            long revenueCents,
+            long averageTicketCents,
+            long medianDeliveryMillis,
+            long p95DeliveryMillis,
+            long p99DeliveryMillis
+    ) {
+    }
+
+    public OrderAnalytics() {
+        this.statusCounts = new AtomicLongArray(OrderStatus.values().length);
+        this.revenueCents = new LongAdder();
+        this.deliveredOrders = new LongAdder();
+        this.topItems = new TopItemsSketch(TRACKED_ITEMS);
+        this.deliveryMillis = new LatencyHistogram();
+    }
+
+    @Override
+    public void publish(OrderEvent event) {
+        var order = event.order();
+        switch (event.type()) {
+            case ORDER_CREATED -> statusCounts.incrementAndGet(order.status().ordinal());
+            case STATUS_UPDATED -> {
+                var previous = event.previousStatus();
+                if (previous != null && previous != order.status()) {
+                    statusCounts.decrementAndGet(previous.ordinal());
+                    statusCounts.incrementAndGet(order.status().ordinal());
+                }
+            }
+            case ORDER_DELIVERED -> {
+                deliveredOrders.increment();
+                revenueCents.add(order.totalCents());
+                deliveryMillis.record(ChronoUnit.MILLIS.between(order.orderTime(), LocalDateTime.now()));
+                var lines = order.lines();
+                var catalog = ItemCatalog.shared();
+                for (int line = 0; line < lines.lineCount(); line++) {
+                    int itemId = lines.catalog() == catalog ? lines.itemId(line) : catalog.intern(lines.item(line));
+                    topItems.add(itemId, lines.quantity(line));
+                }
+            }
+            case AGENT_ASSIGNED, NO_AGENT_AVAILABLE -> {
+                // no effect on the numbers tracked here
+            }
+        }
+    }
+
+    public long ordersInStatus(OrderStatus status) {
+        return statusCounts.get(status.ordinal());
+    }
+
+    public long deliveredOrders() {
+        return deliveredOrders.sum();
+    }
+
+    public long revenueCents() {
+        return revenueCents.sum();
+    }
+
+    public long averageTicketCents() {
+        long delivered = deliveredOrders.sum();
+        return delivered == 0 ? 0 : revenueCents.sum() / delivered;
+    }
+
+    public List<TopItemsSketch.ItemCount> topItems(int n) {
+        return topItems.top(n);
+    }
+
+    // Placed-to-delivered time in milliseconds
+    public long deliveryTimePercentile(double percentile) {
+        return deliveryMillis.percentile(percentile);
+    }
+
+    public Snapshot snapshot() {
+        var byStatus = new EnumMap<OrderStatus, Long>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, ordersInStatus(status));
+        }
+        return new Snapshot(byStatus, deliveredOrders(), revenueCents(), averageTicketCents(),
+                deliveryMillis.percentile(50), deliveryMillis.percentile(95), deliveryMillis.percentile(99));
+    }
+}
@@ -0,0 +1,164 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+// Drives an OrderApiServer over real HTTP from many clients, each on its own virtual thread. They
+// share one HttpClient, whose pooled HTTP/1.1 connections are kept alive between requests. Each
+// client browses the menu, places an order (every tenth time a whole batch, dispatched on placing),
+// tracks it and, when an agent is free, takes it through to delivery. Reports requests per second and latency percentiles
+// for each kind of request.
+public class OrderApiLoadTest {
+    private static final Pattern ORDER_ID = Pattern.compile("\"id\":(\\d+)");
+    private static final Pattern PREPARING_ID = Pattern.compile("\"id\":(\\d+),\"customer\":\"[^\"]*\",\"status\":\"PREPARING\"");
+    private static final List<String> SEARCHES = List.of("piz", "burger", "cola", "pasta", "salad", "water");
+    private static final List<String> BASKETS = List.of("Margherita Pizza,Coca Cola", "Burger,Water",
+            "Pasta Carbonara", "Pepperoni Pizza,Caesar Salad,Coca Cola");
+
+    public record Config(int clients, int ordersPerClient, int batchSize) {
+        public Config {
+            if (clients <= 0 || ordersPerClient <= 0 || batchSize <= 0) {
+                throw new IllegalArgumentException("Clients, orders per client and batch size must be positive");
+            }
+        }
+
+        public static Config defaults() {
+            return new Config(200, 50, 20);
+        }
+    }
+
+    private enum RequestKind {
+        MENU_SEARCH, PLACE_ORDER, PLACE_BATCH, TRACK_ORDER, ASSIGN_AGENT, UPDATE_STATUS, DELIVER
+    }
+
+    private final URI base;
+    private final Config config;
+    private final HttpClient client;
+    private final Map<RequestKind, LatencyHistogram> latencies;
+    private final LongAdder failures;
+
+    public OrderApiLoadTest(URI base, Config config) {
+        if (base == null || config == null) {
+            throw new IllegalArgumentException("Base URI and config cannot be null");
+        }
+        this.base = base;
+        this.config = config;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.latencies = new EnumMap<>(RequestKind.class);
+        for (RequestKind kind : RequestKind.values()) {
+            latencies.put(kind, new LatencyHistogram());
+        }
+        this.failures = new LongAdder();
+    }
+
+    public void run() {
+        System.out.println("Load testing " + base + " with " + config.clients() + " clients, "
+                + config.ordersPerClient() + " orders each");
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < config.clients(); c++) {
+                int clientId = c;
+                clients.execute(() -> runClient(clientId));
+            }
+        }
+        report(System.nanoTime() - start);
+    }
+
+    private void runClient(int clientId) {
+        var random = new SplittableRandom(clientId);
+        var customer = "name=" + encode("Customer " + clientId) + "&phone=" + encode("08" + (10_000_000 + clientId))
+                + "&address=" + encode(clientId + " Load St, Dublin") + "&items=";
+        for (int i = 0; i < config.ordersPerClient(); i++) {
+            try {
+                send(RequestKind.MENU_SEARCH, get("/menu?q=" + SEARCHES.get(random.nextInt(SEARCHES.size()))));
+                var order = customer + encode(BASKETS.get(random.nextInt(BASKETS.size())));
+                if (i % 10 == 9) {
+                    var batch = new StringBuilder();
+                    for (int n = 0; n < config.batchSize(); n++) {
+                        batch.append(order).append('\n');
+                    }
+                    var placed = send(RequestKind.PLACE_BATCH, post("/orders/batch?assign=true", batch.toString()));
+                    var assigned = PREPARING_ID.matcher(placed.body());
+                    while (assigned.find()) {
+                        deliver("/orders/" + assigned.group(1));
+                    }
+                    continue;
+                }
+                var placed = send(RequestKind.PLACE_ORDER, post("/orders", order));
+                var matcher = ORDER_ID.matcher(placed.body());
+                if (placed.statusCode() != 201 || !matcher.find()) {
+                    continue;
+                }
+                var path = "/orders/" + matcher.group(1);
+                send(RequestKind.TRACK_ORDER, get(path));
+                if (send(RequestKind.ASSIGN_AGENT, post(path + "/assign", "")).statusCode() == 200) {
+                    deliver(path);
+                }
+            } catch (IOException e) {
+                failures.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void deliver(String path) throws IOException, InterruptedException {
+        send(RequestKind.UPDATE_STATUS, post(path + "/status", "DISPATCHED"));
+        send(RequestKind.DELIVER, post(path + "/deliver", ""));
+    }
+
+    // 503 from assign only means every agent is busy, which is expected under load
+    private HttpResponse<String> send(RequestKind kind, HttpRequest request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        latencies.get(kind).record(System.nanoTime() - start);
+        if (response.statusCode() >= 400 && response.statusCode() != 503) {
+            failures.increment();
+        }
+        return response;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long requests = latencies.values().stream().mapToLong(LatencyHistogram::count).sum();
+        System.out.printf("%d requests in %.2f s (%.0f requests/s), failures: %d%n",
+                requests, seconds, requests / seconds, failures.sum());
+        System.out.printf("%-14s %9s %10s %10s %10s%n", "request", "count", "p50 us", "p99 us", "max us");
+        latencies.forEach((kind, histogram) -> {
+            if (histogram.count() > 0) {
+                System.out.printf("%-14s %9d %10d %10d %10d%n", kind, histogram.count(), histogram.percentile(50) / 1_000,
+                        histogram.percentile(99) / 1_000, histogram.max() / 1_000);
+            }
+        });
+    }
+}
@@ -0,0 +1,410 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// HTTP front end over a Menu and a DeliveryManager, handling each request on its own virtual thread.
+// Connections stay open between requests (HTTP/1.1 keep-alive), and a whole batch of orders can be
+// placed with one POST.
+//
+//   GET  /menu                   every item; ?q=piz to search by name, ?min=5&max=10 by price
+//   POST /orders                 one order, form-encoded: name, phone, address, items=Burger,Water
+//   POST /orders/batch           one form-encoded order per line, all placed together; ?assign=true
+//                                also sends free agents to as many of them as it can
+//   GET  /orders                 a page of active orders; ?status=, ?cursor=, ?limit=
+//   GET  /orders?phone=          every order that customer has placed, oldest first
+//   POST /orders/reorder         the body is phone=...; places that customer's last order again
+//   GET  /orders/{id}            tracking: status, agent and estimated minutes
+//   POST /orders/{id}/status     the body is the new status, e.g. DISPATCHED; not PREPARING before an
+//                                agent is assigned, nor DELIVERED, which is /deliver
+//   POST /orders/{id}/assign     sends the nearest free agent
+//   POST /orders/{id}/deliver    completes the order with its assigned agent
+//
+// Responses are JSON. Bad input is 400, an unknown order 404, an illegal status change 409 and no
+// free agent 503.
+public class OrderApiServer implements AutoCloseable {
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private final DeliveryManager manager;
+    private final Menu menu;
+    private final HttpServer server;
+    private final ExecutorService requests;
+    private final OrderIntakePipeline intake;
+
+    private record Response(int status, String json) {
+    }
+
+    // Thrown by a handler to answer with an error status instead of 200
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    // Port 0 picks any free port; see port()
+    public OrderApiServer(DeliveryManager manager, Menu menu, int port) throws IOException {
+        if (manager == null || menu == null) {
+            throw new IllegalArgumentException("Manager and menu cannot be null");
+        }
+        this.manager = manager;
+        this.menu = menu;
+        this.requests = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        this.intake = new OrderIntakePipeline(manager);
+        server.setExecutor(requests);
+        server.createContext("/menu", exchange -> handle(exchange, this::menu));
+        server.createContext("/orders", exchange -> handle(exchange, this::orders));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        requests.close();
+        intake.close();
+    }
+
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws IOException;
+    }
+
+    private static void handle(HttpExchange exchange, Handler handler) throws IOException {
+        Response response;
+        try {
+            response = handler.handle(exchange);
+        } catch (ApiException e) {
+            response = error(e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            response = error(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            response = error(409, e.getMessage());
+        } catch (RuntimeException e) {
+            // A bug rather than a bad request, so keep the details for whoever runs the server
+            System.err.println("Internal error handling " + exchange.getRequestMethod() + " "
+                    + exchange.getRequestURI() + ":");
+            e.printStackTrace();
+            response = error(500, "Internal error");
+        }
+        var body = response.json().getBytes(StandardCharsets.UTF_8);
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(response.status(), body.length); // a known length keeps the connection reusable
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private Response menu(HttpExchange exchange) throws IOException {
+        requireMethod(exchange, "GET");
+        requirePath(exchange, "/menu");
+        var query = queryOf(exchange);
+        List<Item> items;
+        if (query.containsKey("q")) {
+            items = menu.suggestItems(query.get("q"));
+        } else if (query.containsKey("min") || query.containsKey("max")) {
+            items = menu.findItemsByPriceRangeCents(Money.ofEuros(parseDouble(query.getOrDefault("min", "0"))),
+                    Money.ofEuros(parseDouble(query.getOrDefault("max", "1000000"))));
+        } else {
+            items = menu.viewAllItems();
+        }
+        var json = new StringBuilder(64 * items.size() + 2).append('[');
+        for (int i = 0; i < items.size(); i++) {
+            appendItem(i == 0 ? json : json.append(','), items.get(i));
+        }
+        return new Response(200, json.append(']').toString());
+    }
+
+    private Response orders(HttpExchange exchange) throws IOException {
+        var parts = exchange.getRequestURI().getPath().split("/"); // "", "orders", ...
+        if (parts.length < 2 || !parts[1].equals("orders")) {
+            throw new ApiException(404, "No such resource: " + exchange.getRequestURI().getPath());
+        }
+        if (parts.length == 2) {
+            return switch (exchange.getRequestMethod()) {
+                case "GET" -> listOrders(exchange);
+                case "POST" -> placeOrder(exchange);
+                default -> throw new ApiException(405, "Use GET or POST on /orders");
+            };
+        }
+        if (parts.length == 3 && parts[2].equals("batch")) {
+            requireMethod(exchange, "POST");
+            return placeBatch(exchange);
+        }
+        if (parts.length == 3 && parts[2].equals("reorder")) {
+            requireMethod(exchange, "POST");
+            return reorder(exchange);
+        }
+        int id = parseOrderId(parts[2]);
+        if (parts.length == 3) {
+            requireMethod(exchange, "GET");
+            return new Response(200, appendOrder(new StringBuilder(256), activeOrder(id)).toString());
+        }
+        if (parts.length == 4) {
+            requireMethod(exchange, "POST");
+            return switch (parts[3]) {
+                case "status" -> updateStatus(exchange, id);
+                case "assign" -> assignAgent(id);
+                case "deliver" -> deliver(id);
+                default -> throw new ApiException(404, "No such action: " + parts[3]);
+            };
+        }
+        throw new ApiException(404, "No such resource: " + exchange.getRequestURI().getPath());
+    }
+
+    private Response listOrders(HttpExchange exchange) {
+        var query = queryOf(exchange);
+        if (query.containsKey("phone")) {
+            var history = manager.orderHistory(query.get("phone"));
+            var json = new StringBuilder(256 * history.size() + 16).append("{\"orders\":[");
+            for (int i = 0; i < history.size(); i++) {
+                appendOrder(i == 0 ? json : json.append(','), history.get(i));
+            }
+            return new Response(200, json.append("]}").toString());
+        }
+        int cursor = parseInt(query.getOrDefault("cursor", String.valueOf(OrderPage.FIRST)), "cursor");
+        int limit = parseInt(query.getOrDefault("limit", String.valueOf(DEFAULT_PAGE_SIZE)), "limit");
+        var page = query.containsKey("status")
+                ? manager.activeOrdersPage(parseStatus(query.get("status")), cursor, limit)
+                : manager.activeOrdersPage(cursor, limit);
+        var json = new StringBuilder(256 * page.orders().size() + 64).append("{\"orders\":[");
+        for (int i = 0; i < page.orders().size(); i++) {
+            appendOrder(i == 0 ? json : json.append(','), page.orders().get(i));
+        }
+        json.append("],\"nextCursor\":").append(page.nextCursor()).append(",\"hasMore\":").append(page.hasMore());
+        return new Response(200, json.append('}').toString());
+    }
+
+    private Response placeOrder(HttpExchange exchange) throws IOException {
+        var request = parseOrderRequest(readBody(exchange).strip());
+        var order = manager.createOrder(request.customer(), request.items());
+        return new Response(201, appendOrder(new StringBuilder(256), order).toString());
+    }
+
+    // All or nothing: one bad line rejects the whole batch before any order is placed
+    private Response placeBatch(HttpExchange exchange) throws IOException {
+        var lines = readBody(exchange).lines().filter(line -> !line.isBlank()).toList();
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("Batch is empty");
+        }
+        var batch = new ArrayList<OrderRequest>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            try {
+                batch.add(parseOrderRequest(lines.get(i)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        var orders = "true".equals(queryOf(exchange).get("assign")) ? placeAndAssign(batch) : manager.createOrders(batch);
+        var json = new StringBuilder(256 * orders.size() + 2).append('[');
+        for (int i = 0; i < orders.size(); i++) {
+            appendOrder(i == 0 ? json : json.append(','), orders.get(i));
+        }
+        return new Response(201, json.append(']').toString());
+    }
+
+    // Through the intake pipeline, so concurrent batches overlap placing one with dispatching another
+    private List<Order> placeAndAssign(List<OrderRequest> batch) {
+        try {
+            return intake.submit(batch).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause; // mapped to a status like any other handler failure
+            }
+            throw e;
+        }
+    }
+
+    private Response reorder(HttpExchange exchange) throws IOException {
+        var phone = parseForm(readBody(exchange).strip()).get("phone");
+        if (phone == null || phone.isBlank()) {
+            throw new IllegalArgumentException("Reorder needs a phone");
+        }
+        var order = manager.reorder(phone);
+        return new Response(201, appendOrder(new StringBuilder(256), order).toString());
+    }
+
+    private Response updateStatus(HttpExchange exchange, int id) throws IOException {
+        var status = parseStatus(readBody(exchange).strip());
+        var updated = manager.updateStatus(activeOrder(id), status);
+        return new Response(200, appendOrder(new StringBuilder(256), updated).toString());
+    }
+
+    private Response assignAgent(int id) {
+        var order = activeOrder(id);
+        if (manager.assignAgent(order).isEmpty()) {
+            throw new ApiException(503, "No agent is free for order #" + id);
+        }
+        return new Response(200, appendOrder(new StringBuilder(256), activeOrder(id)).toString());
+    }
+
+    private Response deliver(int id) {
+        var order = activeOrder(id);
+        var agent = manager.assignedAgent(id)
+                .orElseThrow(() -> new IllegalStateException("Order #" + id + " has no agent"));
+        manager.completeDelivery(order, agent);
+        return new Response(200, "{\"id\":" + id + ",\"status\":\"" + OrderStatus.DELIVERED + "\"}");
+    }
+
+    private Order activeOrder(int id) {
+        var order = manager.findActiveOrder(id);
+        if (order == null) {
+            throw new ApiException(404, "Order #" + id + " is not active");
+        }
+        return order;
+    }
+
+    // name=...&phone=...&address=...&items=Burger,Coca Cola,Coca Cola. Only validates: the customer is
+    // registered when the order is placed, so a batch rejected on a later line registers no one.
+    private OrderRequest parseOrderRequest(String form) {
+        var fields = parseForm(form);
+        var customer = new Customer(fields.get("name"), fields.get("phone"),
+                fields.getOrDefault("address", "Address not provided"));
+        var names = fields.get("items");
+        if (names == null || names.isBlank()) {
+            throw new IllegalArgumentException("Order must contain at least one item");
+        }
+        var items = new ArrayList<Item>();
+        for (String name : names.split(",")) {
+            var item = menu.findItemByName(name.strip());
+            if (item == null) {
+                var suggestions = menu.suggestItems(name.strip()).stream().map(Item::name).toList();
+                throw new IllegalArgumentException("No menu item '" + name.strip() + "'"
+                        + (suggestions.isEmpty() ? "" : ", did you mean " + String.join(", ", suggestions) + "?"));
+            }
+            items.add(item);
+        }
+        return new OrderRequest(customer, items);
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            var body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new ApiException(413, "Request body over " + MAX_BODY_BYTES + " bytes");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> queryOf(HttpExchange exchange) {
+        var query = exchange.getRequestURI().getRawQuery();
+        return query == null ? Map.of() : parseForm(query);
+    }
+
+    private static Map<String, String> parseForm(String form) {
+        var fields = new HashMap<String, String>();
+        for (String pair : form.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                fields.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return fields;
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) {
+            throw new ApiException(405, "Use " + method + " on " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    private static void requirePath(HttpExchange exchange, String path) {
+        if (!exchange.getRequestURI().getPath().equals(path)) {
+            throw new ApiException(404, "No such resource: " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    private static int parseOrderId(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new ApiException(404, "No such order: " + text);
+        }
+    }
+
+    private static int parseInt(String text, String name) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + text);
+        }
+    }
+
+    private static double parseDouble(String text) {
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid price: " + text);
+        }
+    }
+
+    private static OrderStatus parseStatus(String text) {
+        try {
+            return OrderStatus.valueOf(text.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown status: " + text);
+        }
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, appendString(new StringBuilder("{\"error\":"), message).append('}').toString());
+    }
+
+    private StringBuilder appendOrder(StringBuilder json, Order order) {
+        json.append("{\"id\":").append(order.id()).append(",\"customer\":");
+        appendString(json, order.customer().name()).append(",\"status\":\"").append(order.status())
+                .append("\",\"totalCents\":").append(order.totalCents())
+                .append(",\"estimatedMinutes\":").append(order.estimatedTimeMinutes());
+        manager.assignedAgent(order.id()).ifPresent(agent -> appendString(json.append(",\"agent\":"), agent.name()));
+        json.append(",\"items\":[");
+        var items = order.items();
+        for (int i = 0; i < items.size(); i++) {
+            appendItem(i == 0 ? json : json.append(','), items.get(i));
+        }
+        return json.append("]}");
+    }
+
+    private static StringBuilder appendItem(StringBuilder json, Item item) {
+        json.append("{\"name\":");
+        return appendString(json, item.name()).append(",\"priceCents\":").append(item.priceCents()).append('}');
+    }
+
+    private static StringBuilder appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"');
+    }
+}
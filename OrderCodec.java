@@ -0,0 +1,375 @@
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+// Hand-written binary form of orders, customers and items, read and written straight from and to a
+// ByteBuffer. Every order starts with a schema version byte. Small numbers are varints, and text is
+// UTF-8 written char by char without building a byte[] first.
+//
+// Customers and items are length-prefixed, so a decoder can recognise ones it has already seen by
+// their bytes alone. It then hands back the same Customer or Item instance without decoding the
+// text again. A decoder keeps that cache, so use one per thread, like BillRenderer.
+public final class OrderCodec {
+    public static final byte VERSION = 1;
+
+    private static final int CACHE_SLOTS = 4096; // power of two so the hash can be masked
+
+    private final ItemCatalog catalog;
+    private final SegmentCache<Customer> customers;
+    private final SegmentCache<Item> items;
+    private byte[] scratch;
+    private int[] lineItemIds;
+    private int[] lineQuantities;
+
+    public OrderCodec() {
+        this(ItemCatalog.shared());
+    }
+
+    public OrderCodec(ItemCatalog catalog) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        this.catalog = catalog;
+        this.customers = new SegmentCache<>();
+        this.items = new SegmentCache<>();
+        this.scratch = new byte[256];
+        this.lineItemIds = new int[16];
+        this.lineQuantities = new int[16];
+    }
+
+    // Exact number of bytes encode() writes for the order
+    public static int encodedSize(Order order) {
+        var lines = order.lines();
+        int size = 1 + varIntSize(zigZag(order.id())) + segmentSize(customerSize(order.customer()))
+                + varIntSize(lines.lineCount());
+        for (int line = 0; line < lines.lineCount(); line++) {
+            size += segmentSize(itemSize(lines.item(line))) + varIntSize(lines.quantity(line));
+        }
+        return size + varLongSize(zigZag(order.totalCents())) + 1 + varIntSize(order.estimatedTimeMinutes())
+                + Long.BYTES + varIntSize(order.orderTime().getNano());
+    }
+
+    // Writes at the buffer's position and advances it; throws BufferOverflowException when out of room
+    public static void encode(Order order, ByteBuffer out) {
+        var lines = order.lines();
+        out.put(VERSION);
+        putVarInt(out, zigZag(order.id()));
+        encode(order.customer(), out);
+        putVarInt(out, lines.lineCount());
+        for (int line = 0; line < lines.lineCount(); line++) {
+            encode(lines.item(line), out);
+            putVarInt(out, lines.quantity(line));
+        }
+        putVarLong(out, zigZag(order.totalCents()));
+        out.put((byte) order.status().ordinal());
+        putVarInt(out, order.estimatedTimeMinutes());
+        out.putLong(order.orderTime().toEpochSecond(ZoneOffset.UTC));
+        putVarInt(out, order.orderTime().getNano());
+    }
+
+    public static void encode(Customer customer, ByteBuffer out) {
+        // Each text is measured once, for the segment length and its own length prefix
+        int nameBytes = utf8Length(customer.name());
+        int phoneBytes = utf8Length(customer.phone());
+        int addressBytes = utf8Length(customer.address());
+        var location = customer.location();
+        putVarInt(out, varIntSize(nameBytes) + nameBytes + varIntSize(phoneBytes) + phoneBytes
+                + varIntSize(addressBytes) + addressBytes + 1 + (location.isPresent() ? 2 * Double.BYTES : 0));
+        putString(out, customer.name(), nameBytes);
+        putString(out, customer.phone(), phoneBytes);
+        putString(out, customer.address(), addressBytes);
+        out.put((byte) (location.isPresent() ? 1 : 0));
+        if (location.isPresent()) {
+            out.putDouble(location.get().latitude()).putDouble(location.get().longitude());
+        }
+    }
+
+    public static void encode(Item item, ByteBuffer out) {
+        int nameBytes = utf8Length(item.name());
+        putVarInt(out, varIntSize(nameBytes) + nameBytes + varLongSize(item.priceCents()));
+        putString(out, item.name(), nameBytes);
+        putVarLong(out, item.priceCents());
+    }
+
+    // Reads one order at the buffer's position and advances past it
+    public Order decode(ByteBuffer in) {
+        try {
+            byte version = in.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported order encoding version " + version);
+            }
+            int id = unZigZag(getVarInt(in));
+            var customer = decodeCustomer(in);
+            int lineCount = getVarInt(in);
+            if (lineCount <= 0 || lineCount > in.remaining()) {
+                throw new IllegalArgumentException("Corrupt order: " + lineCount + " lines");
+            }
+            if (lineItemIds.length < lineCount) {
+                lineItemIds = new int[Math.max(lineCount, lineItemIds.length * 2)];
+                lineQuantities = new int[lineItemIds.length];
+            }
+            for (int line = 0; line < lineCount; line++) {
+                lineItemIds[line] = decodeItemId(in);
+                lineQuantities[line] = getVarInt(in);
+            }
+            var lines = OrderLines.of(catalog, Arrays.copyOf(lineItemIds, lineCount),
+                    Arrays.copyOf(lineQuantities, lineCount));
+            long totalCents = unZigZag(getVarLong(in));
+            int statusOrdinal = in.get();
+            var statuses = OrderStatus.values();
+            if (statusOrdinal < 0 || statusOrdinal >= statuses.length) {
+                throw new IllegalArgumentException("Corrupt order: status " + statusOrdinal);
+            }
+            int estimatedTime = getVarInt(in);
+            var orderTime = LocalDateTime.ofEpochSecond(in.getLong(), getVarInt(in), ZoneOffset.UTC);
+            return new Order(id, customer, lines, totalCents, statuses[statusOrdinal], estimatedTime, orderTime);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated order", e);
+        }
+    }
+
+    public Customer decodeCustomer(ByteBuffer in) {
+        int length = getVarInt(in);
+        int start = in.position();
+        int slot = customers.slotFor(in, start, length);
+        var cached = customers.get(slot, in, start, length);
+        if (cached != null) {
+            in.position(start + length);
+            return cached;
+        }
+        var name = getString(in);
+        var phone = getString(in);
+        var address = getString(in);
+        var location = in.get() == 1 ? new GeoPoint(in.getDouble(), in.getDouble()) : null;
+        checkEnd(in, start, length, "customer");
+        var customer = new Customer(name, phone, address, location);
+        customers.put(slot, in, start, length, customer, 0);
+        return customer;
+    }
+
+    public Item decodeItem(ByteBuffer in) {
+        return catalog.item(decodeItemId(in));
+    }
+
+    // How many distinct customers and items are cached for reuse
+    public int cachedCustomers() {
+        return customers.size();
+    }
+
+    public int cachedItems() {
+        return items.size();
+    }
+
+    // Items go straight to their catalog id; a cache hit never even builds the Item
+    private int decodeItemId(ByteBuffer in) {
+        int length = getVarInt(in);
+        int start = in.position();
+        int slot = items.slotFor(in, start, length);
+        if (items.get(slot, in, start, length) != null) {
+            in.position(start + length);
+            return items.idAt(slot);
+        }
+        var item = new Item(getString(in), getVarLong(in));
+        checkEnd(in, start, length, "item");
+        int id = catalog.intern(item);
+        items.put(slot, in, start, length, catalog.item(id), id);
+        return id;
+    }
+
+    private static void checkEnd(ByteBuffer in, int start, int length, String what) {
+        if (in.position() != start + length) {
+            throw new IllegalArgumentException("Corrupt " + what + ": expected " + length + " bytes, read "
+                    + (in.position() - start));
+        }
+    }
+
+    private static int customerSize(Customer customer) {
+        return stringSize(customer.name()) + stringSize(customer.phone()) + stringSize(customer.address())
+                + 1 + (customer.location().isPresent() ? 2 * Double.BYTES : 0);
+    }
+
+    private static int itemSize(Item item) {
+        return stringSize(item.name()) + varLongSize(item.priceCents());
+    }
+
+    private static int segmentSize(int length) {
+        return varIntSize(length) + length;
+    }
+
+    private static int stringSize(String value) {
+        int bytes = utf8Length(value);
+        return varIntSize(bytes) + bytes;
+    }
+
+    private static int utf8Length(String value) {
+        int bytes = 0;
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3; // includes a lone surrogate, written as U+FFFD below
+            }
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer out, String value, int utf8Length) {
+        putVarInt(out, utf8Length);
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out.put((byte) (0xF0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3F))
+                        .put((byte) (0x80 | codePoint >> 6 & 0x3F)).put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                out.put((byte) 0xEF).put((byte) 0xBF).put((byte) 0xBD); // U+FFFD
+            } else {
+                out.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    private String getString(ByteBuffer in) {
+        int length = getVarInt(in);
+        if (length > in.remaining()) {
+            throw new IllegalArgumentException("Corrupt text: " + length + " bytes");
+        }
+        if (in.hasArray()) {
+            var text = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return text;
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        in.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static int zigZag(int value) {
+        return value << 1 ^ value >> 31;
+    }
+
+    private static int unZigZag(int value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private static long zigZag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    private static long unZigZag(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private static int varIntSize(int value) {
+        return varLongSize(value & 0xFFFFFFFFL);
+    }
+
+    private static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static void putVarInt(ByteBuffer out, int value) {
+        putVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    private static void putVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static int getVarInt(ByteBuffer in) {
+        long value = getVarLong(in);
+        if (value >>> 32 != 0) {
+            throw new IllegalArgumentException("Corrupt varint: " + value);
+        }
+        return (int) value;
+    }
+
+    private static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Corrupt varint: more than 10 bytes");
+    }
+
+    // Direct-mapped cache from a value's encoded bytes to the decoded value. A collision simply
+    // replaces the older entry, so memory stays bounded however many distinct values go by.
+    private static final class SegmentCache<T> {
+        private final byte[][] keys = new byte[CACHE_SLOTS][];
+        private final Object[] values = new Object[CACHE_SLOTS];
+        private final int[] ids = new int[CACHE_SLOTS];
+        private int size;
+
+        private int slotFor(ByteBuffer in, int start, int length) {
+            if (length < 0 || length > in.limit() - start) {
+                throw new BufferUnderflowException();
+            }
+            int hash = 1;
+            for (int i = start, end = start + length; i < end; i++) {
+                hash = 31 * hash + in.get(i);
+            }
+            return (hash ^ hash >>> 16) & (CACHE_SLOTS - 1);
+        }
+
+        @SuppressWarnings("unchecked")
+        private T get(int slot, ByteBuffer in, int start, int length) {
+            var key = keys[slot];
+            if (key == null || key.length != length) {
+                return null;
+            }
+            for (int i = 0; i < length; i++) {
+                if (key[i] != in.get(start + i)) {
+                    return null;
+                }
+            }
+            return (T) values[slot];
+        }
+
+        private int idAt(int slot) {
+            return ids[slot];
+        }
+
+        private void put(int slot, ByteBuffer in, int start, int length, T value, int id) {
+            if (keys[slot] == null) {
+                size++;
+            }
+            var key = new byte[length];
+            in.get(start, key);
+            keys[slot] = key;
+            values[slot] = value;
+            ids[slot] = id;
+        }
+
+        private int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+public record OrderEvent(OrderEventType type, Order order, DeliveryAgent agent, OrderStatus previousStatus) {
+
+    public OrderEvent {
+        if (type == null) {
+            throw new IllegalArgumentException("Event type cannot be null");
+        }
+        if (order == null) {
+            throw new IllegalArgumentException("Event order cannot be null");
+        }
+    }
+
+    public OrderEvent(OrderEventType type, Order order, DeliveryAgent agent) {
+        this(type, order, agent, null);
+    }
+
+    public OrderEvent(OrderEventType type, Order order) {
+        this(type, order, null, null);
+    }
+}
@@ -0,0 +1,73 @@
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Streams order events to any number of Flow subscribers. Each subscriber has its own bounded buffer
+// and pulls events at its own pace. publish() never blocks: a subscriber that falls a whole buffer
+// behind misses the newer events instead of holding up dispatch.
+public class OrderEventPublisher implements OrderEventSink, AutoCloseable {
+    private final SubmissionPublisher<OrderEvent> publisher;
+    private final LongAdder dropped;
+
+    public OrderEventPublisher() {
+        this(ForkJoinPool.commonPool(), Flow.defaultBufferSize());
+    }
+
+    public OrderEventPublisher(Executor executor, int bufferCapacity) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        this.publisher = new SubmissionPublisher<>(executor, bufferCapacity);
+        this.dropped = new LongAdder();
+    }
+
+    @Override
+    public void publish(OrderEvent event) {
+        publisher.offer(event, (subscriber, unsent) -> {
+            dropped.increment();
+            return false; // no retry: the dispatcher must not wait on a slow subscriber
+        });
+    }
+
+    public void subscribe(Flow.Subscriber<? super OrderEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    // Runs the consumer for every event of the given types; the future completes when the stream closes
+    public CompletableFuture<Void> subscribe(Set<OrderEventType> types, Consumer<? super OrderEvent> consumer) {
+        if (types == null || types.isEmpty() || consumer == null) {
+            throw new IllegalArgumentException("Event types and consumer are required");
+        }
+        var wanted = EnumSet.copyOf(types);
+        return publisher.consume(event -> {
+            if (wanted.contains(event.type())) {
+                consumer.accept(event);
+            }
+        });
+    }
+
+    // Only the status changes, each carrying the status it came from
+    public CompletableFuture<Void> subscribeToTransitions(Consumer<? super OrderEvent> consumer) {
+        return subscribe(EnumSet.of(OrderEventType.STATUS_UPDATED), consumer);
+    }
+
+    public long droppedEvents() {
+        return dropped.sum();
+    }
+
+    public int subscriberCount() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    // Subscribers receive what is already buffered, then onComplete
+    @Override
+    public void close() {
+        publisher.close();
+    }
+}
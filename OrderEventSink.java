@@ -0,0 +1,33 @@
+import java.util.List;
+
+@FunctionalInterface
+public interface OrderEventSink {
+
+    void publish(OrderEvent event);
+
+    // Sinks that can do better with a whole batch (one console write, one disk write) override this
+    default void publishAll(List<OrderEvent> events) {
+        for (OrderEvent event : events) {
+            publish(event);
+        }
+    }
+
+    static OrderEventSink noOp() {
+        return event -> { };
+    }
+
+    static OrderEventSink fanOut(OrderEventSink... sinks) {
+        var targets = List.of(sinks);
+        return new OrderEventSink() {
+            @Override
+            public void publish(OrderEvent event) {
+                targets.forEach(sink -> sink.publish(event));
+            }
+
+            @Override
+            public void publishAll(List<OrderEvent> events) {
+                targets.forEach(sink -> sink.publishAll(events));
+            }
+        };
+    }
+}
@@ -0,0 +1,7 @@
+public enum OrderEventType {
+    ORDER_CREATED,
+    STATUS_UPDATED,
+    AGENT_ASSIGNED,
+    NO_AGENT_AVAILABLE,
+    ORDER_DELIVERED
+}
@@ -0,0 +1,56 @@
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Two-stage intake: one thread creates batches of orders while another matches the previous batch
+// against idle agents, so a lunch-peak burst keeps both stages busy.
+public class OrderIntakePipeline implements AutoCloseable {
+    private final DeliveryManager manager;
+    private final ExecutorService intakeStage;
+    private final ExecutorService dispatchStage;
+
+    public OrderIntakePipeline(DeliveryManager manager) {
+        if (manager == null) {
+            throw new IllegalArgumentException("Manager cannot be null");
+        }
+        this.manager = manager;
+        this.intakeStage = Executors.newSingleThreadExecutor(runnable -> stageThread(runnable, "order-intake"));
+        this.dispatchStage = Executors.newSingleThreadExecutor(runnable -> stageThread(runnable, "order-dispatch"));
+    }
+
+    // Completes with every order of the batch, in batch order; the ones that got an agent are PREPARING
+    public CompletableFuture<List<Order>> submit(List<OrderRequest> batch) {
+        return CompletableFuture.supplyAsync(() -> manager.createOrders(batch), intakeStage)
+                .thenApplyAsync(this::dispatch, dispatchStage);
+    }
+
+    private List<Order> dispatch(List<Order> created) {
+        var assigned = new HashMap<Integer, Order>();
+        for (Order order : manager.assignAgents(created)) {
+            assigned.put(order.id(), order);
+        }
+        return created.stream().map(order -> assigned.getOrDefault(order.id(), order)).toList();
+    }
+
+    // Lets batches already submitted finish; gives up waiting if the calling thread is interrupted
+    @Override
+    public void close() {
+        intakeStage.shutdown();
+        dispatchStage.shutdown();
+        try {
+            intakeStage.awaitTermination(1, TimeUnit.MINUTES);
+            dispatchStage.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Thread stageThread(Runnable runnable, String name) {
+        var thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,488 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Append-only journal of order events plus periodic snapshots.
+// Each record is [length][crc32c][type][payload]; a torn or corrupt tail ends replay.
+public class OrderJournal implements OrderEventSink, AutoCloseable {
+    private static final byte CREATED = 1;
+    private static final byte STATUS = 2;
+    private static final byte ASSIGNED = 3;
+    private static final byte DELIVERED = 4;
+
+    private static final int SNAPSHOT_MAGIC = 0x4F534E50; // "OSNP"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final String SNAPSHOT_FILE = "orders.snapshot";
+    private static final int RECORD_HEADER = 8;
+
+    private final Path directory;
+    private final boolean waitForCommit;
+    // Not a monitor: publish() runs under the order stripe locks, and a virtual thread waiting for
+    // its commit inside synchronized would pin its carrier
+    private final ReentrantLock lock;
+    private final Condition appended;
+    private final Condition committed;
+    private final Thread committer;
+    private final RecoveredState recovered;
+    private ByteBuffer pending;
+    private ByteBuffer writing;
+    private FileChannel channel;
+    private long segment;
+    private long appendedSequence;
+    private long committedSequence;
+    private IOException failure;
+    private volatile boolean closed;
+    private ScheduledExecutorService snapshotScheduler;
+
+    public record RecoveredState(
+            List<Order> activeOrders,
+            List<Order> completedOrders,
+            Map<Integer, String> agentPhoneByOrder,
+            int nextOrderId
+    ) {
+    }
+
+    private OrderJournal(Path directory, boolean waitForCommit) throws IOException {
+        this.directory = directory;
+        this.waitForCommit = waitForCommit;
+        this.lock = new ReentrantLock();
+        this.appended = lock.newCondition();
+        this.committed = lock.newCondition();
+        this.pending = ByteBuffer.allocate(64 * 1024);
+        this.writing = ByteBuffer.allocate(64 * 1024);
+        Files.createDirectories(directory);
+        this.recovered = replay();
+        // Never append after a possibly torn tail: every run starts a fresh segment
+        this.segment = lastSegment() + 1;
+        this.channel = openSegment(segment);
+        this.committer = new Thread(this::commitLoop, "order-journal-committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    // waitForCommit makes publish() block until its record is on disk; concurrent callers share one fsync
+    public static OrderJournal open(Path directory, boolean waitForCommit) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Journal directory cannot be null");
+        }
+        return new OrderJournal(directory, waitForCommit);
+    }
+
+    public RecoveredState recoveredState() {
+        return recovered;
+    }
+
+    @Override
+    public void publish(OrderEvent event) {
+        var order = event.order();
+        long sequence;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            switch (event.type()) {
+                case ORDER_CREATED -> {
+                    int start = beginRecord(CREATED, OrderCodec.encodedSize(order));
+                    OrderCodec.encode(order, pending);
+                    endRecord(start);
+                }
+                case STATUS_UPDATED -> {
+                    int start = beginRecord(STATUS, 5);
+                    pending.putInt(order.id()).put((byte) order.status().ordinal());
+                    endRecord(start);
+                }
+                case AGENT_ASSIGNED -> {
+                    var phone = event.agent().phone().getBytes(StandardCharsets.UTF_8);
+                    int start = beginRecord(ASSIGNED, 4 + 2 + phone.length);
+                    pending.putInt(order.id());
+                    putBytes(pending, phone);
+                    endRecord(start);
+                }
+                case ORDER_DELIVERED -> {
+                    int start = beginRecord(DELIVERED, 4);
+                    pending.putInt(order.id());
+                    endRecord(start);
+                }
+                case NO_AGENT_AVAILABLE -> {
+                    return; // nothing changed
+                }
+            }
+            sequence = ++appendedSequence;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (waitForCommit) {
+            awaitCommit(sequence);
+        }
+    }
+
+    // Blocks until everything appended so far is durable
+    public void sync() {
+        long target;
+        lock.lock();
+        try {
+            target = appendedSequence;
+        } finally {
+            lock.unlock();
+        }
+        awaitCommit(target);
+    }
+
+    // Writes a compact snapshot of the manager and drops the journal segments it covers
+    public synchronized void snapshot(DeliveryManager manager) throws IOException {
+        long firstLiveSegment;
+        lock.lock();
+        try {
+            drainLocked();
+            // Events from here on land in the new segment; replaying them over the snapshot is idempotent
+            channel.close();
+            segment++;
+            channel = openSegment(segment);
+            firstLiveSegment = segment;
+        } finally {
+            lock.unlock();
+        }
+
+        var active = manager.viewActiveOrders();
+        var completed = manager.viewCompletedOrders();
+        int nextOrderId = manager.peekNextOrderId();
+
+        var temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (var out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            var buffer = ByteBuffer.allocate(1 << 20);
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION)
+                    .putInt(nextOrderId).putLong(firstLiveSegment)
+                    .putInt(active.size());
+            for (Order order : active) {
+                var agentPhone = manager.assignedAgent(order.id()).map(User::phone).orElse("");
+                var phone = agentPhone.getBytes(StandardCharsets.UTF_8);
+                buffer = ensureRoom(out, buffer, OrderCodec.encodedSize(order) + 2 + phone.length);
+                OrderCodec.encode(order, buffer);
+                putBytes(buffer, phone);
+            }
+            buffer = ensureRoom(out, buffer, 4);
+            buffer.putInt(completed.size());
+            for (Order order : completed) {
+                buffer = ensureRoom(out, buffer, OrderCodec.encodedSize(order));
+                OrderCodec.encode(order, buffer);
+            }
+            buffer.flip();
+            writeFully(out, buffer);
+            out.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        for (long old : segmentNumbers()) {
+            if (old < firstLiveSegment) {
+                Files.deleteIfExists(segmentPath(old));
+            }
+        }
+    }
+
+    public synchronized void startPeriodicSnapshots(DeliveryManager manager, long interval, TimeUnit unit) {
+        if (snapshotScheduler != null) {
+            throw new IllegalStateException("Periodic snapshots already running");
+        }
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "order-journal-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot(manager);
+            } catch (IOException e) {
+                System.err.println("Order snapshot failed: " + e.getMessage());
+            }
+        }, interval, interval, unit);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (snapshotScheduler != null) {
+                snapshotScheduler.shutdownNow();
+            }
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            drainLocked();
+            closed = true;
+            appended.signalAll();
+            committed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private void commitLoop() {
+        while (true) {
+            FileChannel target;
+            long sequence;
+            lock.lock();
+            try {
+                while (pending.position() == 0 && !closed) {
+                    try {
+                        appended.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.position() == 0) {
+                    return; // closed and drained
+                }
+                // Swap buffers so producers keep appending while this batch is written
+                var full = pending;
+                pending = writing;
+                writing = full;
+                target = channel;
+                sequence = appendedSequence;
+            } finally {
+                lock.unlock();
+            }
+            IOException error = null;
+            try {
+                writing.flip();
+                writeFully(target, writing);
+                target.force(false);
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                writing.clear();
+            }
+            lock.lock();
+            try {
+                if (error != null) {
+                    failure = error;
+                }
+                committedSequence = sequence;
+                committed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void awaitCommit(long sequence) {
+        lock.lock();
+        try {
+            awaitCommitLocked(sequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitCommitLocked(long sequence) {
+        while (committedSequence < sequence && committer.isAlive()) {
+            try {
+                committed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Order journal write failed", failure);
+        }
+    }
+
+    // Waits until nothing is buffered or in flight, so the segment can be swapped safely
+    private void drainLocked() {
+        while (committedSequence < appendedSequence) {
+            awaitCommitLocked(appendedSequence);
+        }
+    }
+
+    private int beginRecord(byte type, int payloadSize) {
+        int needed = RECORD_HEADER + 1 + payloadSize;
+        if (pending.remaining() < needed) {
+            var larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + needed));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        int start = pending.position();
+        pending.putInt(1 + payloadSize).putInt(0).put(type);
+        return start;
+    }
+
+    private void endRecord(int start) {
+        var crc = new CRC32C();
+        crc.update(pending.array(), start + RECORD_HEADER, pending.position() - start - RECORD_HEADER);
+        pending.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private RecoveredState replay() throws IOException {
+        var active = new LinkedHashMap<Integer, Order>();
+        var completed = new LinkedHashMap<Integer, Order>();
+        var agentPhones = new HashMap<Integer, String>();
+        int nextOrderId = 1000;
+        long firstSegment = 0;
+        var codec = new OrderCodec(); // one decoder for the whole replay, so repeat customers come back as one instance
+
+        var snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshotPath)) {
+            try (var in = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+                var buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+                    throw new IOException("Unrecognised order snapshot: " + snapshotPath);
+                }
+                nextOrderId = buffer.getInt();
+                firstSegment = buffer.getLong();
+                int activeCount = buffer.getInt();
+                for (int i = 0; i < activeCount; i++) {
+                    var order = codec.decode(buffer);
+                    var agentPhone = getString(buffer);
+                    active.put(order.id(), order);
+                    if (!agentPhone.isEmpty()) {
+                        agentPhones.put(order.id(), agentPhone);
+                    }
+                }
+                int completedCount = buffer.getInt();
+                for (int i = 0; i < completedCount; i++) {
+                    var order = codec.decode(buffer);
+                    completed.put(order.id(), order);
+                }
+            }
+        }
+
+        for (long number : segmentNumbers()) {
+            if (number < firstSegment) {
+                continue;
+            }
+            try (var in = FileChannel.open(segmentPath(number), StandardOpenOption.READ)) {
+                var buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                while (buffer.remaining() >= RECORD_HEADER + 1) {
+                    int length = buffer.getInt();
+                    int checksum = buffer.getInt();
+                    if (length <= 0 || length > buffer.remaining()) {
+                        break; // torn write at the tail
+                    }
+                    var crc = new CRC32C();
+                    crc.update(buffer.slice(buffer.position(), length));
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                    var record = buffer.slice(buffer.position(), length);
+                    buffer.position(buffer.position() + length);
+
+                    byte type = record.get();
+                    switch (type) {
+                        case CREATED -> {
+                            var order = codec.decode(record);
+                            if (!active.containsKey(order.id()) && !completed.containsKey(order.id())) {
+                                active.put(order.id(), order);
+                            }
+                            nextOrderId = Math.max(nextOrderId, order.id() + 1);
+                        }
+                        case STATUS -> {
+                            int id = record.getInt();
+                            var status = OrderStatus.values()[record.get()];
+                            active.computeIfPresent(id, (key, order) -> order.withStatus(status));
+                        }
+                        case ASSIGNED -> {
+                            int id = record.getInt();
+                            var agentPhone = getString(record);
+                            if (active.containsKey(id)) {
+                                agentPhones.put(id, agentPhone);
+                            }
+                        }
+                        case DELIVERED -> {
+                            int id = record.getInt();
+                            var order = active.remove(id);
+                            if (order != null) {
+                                completed.put(id, order.withStatus(OrderStatus.DELIVERED));
+                            }
+                            agentPhones.remove(id);
+                        }
+                        default -> throw new IOException("Unknown journal record type " + type);
+                    }
+                }
+            }
+        }
+        return new RecoveredState(List.copyOf(active.values()), List.copyOf(completed.values()),
+                Map.copyOf(agentPhones), nextOrderId);
+    }
+
+    private List<Long> segmentNumbers() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith("orders-") && name.endsWith(".journal"))
+                    .map(name -> Long.parseLong(name.substring(7, name.length() - 8)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private long lastSegment() throws IOException {
+        var numbers = segmentNumbers();
+        return numbers.isEmpty() ? 0 : numbers.get(numbers.size() - 1);
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("orders-%010d.journal", number));
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(segmentPath(number), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private static ByteBuffer ensureRoom(FileChannel out, ByteBuffer buffer, int needed) throws IOException {
+        if (buffer.remaining() >= needed) {
+            return buffer;
+        }
+        buffer.flip();
+        writeFully(out, buffer);
+        buffer.clear();
+        return buffer.capacity() >= needed ? buffer : ByteBuffer.allocate(needed);
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static void putBytes(ByteBuffer out, byte[] bytes) {
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Text too long for the journal: " + bytes.length + " bytes");
+        }
+        out.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        var bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,165 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+// The line items of an order as parallel int arrays of catalog ids and quantities.
+// Immutable, so every version of an order can share one instance.
+public final class OrderLines {
+    private final ItemCatalog catalog;
+    private final int[] itemIds;
+    private final int[] quantities;
+    private final int[] lineEnds; // units up to and including each line, so items().get() can binary search
+    private final int itemCount;
+
+    private OrderLines(ItemCatalog catalog, int[] itemIds, int[] quantities) {
+        this.catalog = catalog;
+        this.itemIds = itemIds;
+        this.quantities = quantities;
+        this.lineEnds = new int[quantities.length];
+        int count = 0;
+        for (int line = 0; line < quantities.length; line++) {
+            count = Math.addExact(count, quantities[line]);
+            lineEnds[line] = count;
+        }
+        this.itemCount = count;
+    }
+
+    public static OrderLines of(List<Item> items) {
+        return of(ItemCatalog.shared(), items);
+    }
+
+    // Runs of the same item collapse into one line, which keeps the original item order intact
+    public static OrderLines of(ItemCatalog catalog, List<Item> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Order must contain at least one item");
+        }
+        var ids = new int[items.size()];
+        var quantities = new int[items.size()];
+        int lines = 0;
+        for (int i = 0, size = items.size(); i < size; i++) {
+            int id = catalog.intern(items.get(i));
+            if (lines > 0 && ids[lines - 1] == id) {
+                quantities[lines - 1]++;
+            } else {
+                ids[lines] = id;
+                quantities[lines] = 1;
+                lines++;
+            }
+        }
+        return new OrderLines(catalog, Arrays.copyOf(ids, lines), Arrays.copyOf(quantities, lines));
+    }
+
+    public static OrderLines of(ItemCatalog catalog, int[] itemIds, int[] quantities) {
+        if (itemIds.length == 0 || itemIds.length != quantities.length) {
+            throw new IllegalArgumentException("Order must contain at least one item");
+        }
+        for (int i = 0; i < itemIds.length; i++) {
+            catalog.item(itemIds[i]); // rejects unknown ids
+            if (quantities[i] <= 0) {
+                throw new IllegalArgumentException("Item quantity must be positive");
+            }
+        }
+        return new OrderLines(catalog, itemIds.clone(), quantities.clone());
+    }
+
+    ItemCatalog catalog() {
+        return catalog;
+    }
+
+    public int lineCount() {
+        return itemIds.length;
+    }
+
+    public int itemId(int line) {
+        return itemIds[line];
+    }
+
+    public int quantity(int line) {
+        return quantities[line];
+    }
+
+    public Item item(int line) {
+        return catalog.item(itemIds[line]);
+    }
+
+    public int itemCount() {
+        return itemCount;
+    }
+
+    public long totalCents() {
+        long total = 0;
+        for (int line = 0; line < itemIds.length; line++) {
+            total = Math.addExact(total, Math.multiplyExact(item(line).priceCents(), quantities[line]));
+        }
+        return total;
+    }
+
+    // Expanded one entry per unit, as the old List<Item> was; nothing is copied
+    public List<Item> items() {
+        return new ItemView();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof OrderLines lines
+                && catalog == lines.catalog
+                && Arrays.equals(itemIds, lines.itemIds)
+                && Arrays.equals(quantities, lines.quantities);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(itemIds) + Arrays.hashCode(quantities);
+    }
+
+    @Override
+    public String toString() {
+        return items().toString();
+    }
+
+    private final class ItemView extends AbstractList<Item> implements RandomAccess {
+        @Override
+        public Item get(int index) {
+            if (index < 0 || index >= itemCount) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of range 0.." + itemCount);
+            }
+            int found = Arrays.binarySearch(lineEnds, index);
+            return item(found >= 0 ? found + 1 : -found - 1); // the first line ending after index
+        }
+
+        // Walks the lines directly rather than searching for every unit
+        @Override
+        public Iterator<Item> iterator() {
+            return new Iterator<>() {
+                private int line;
+                private int unit;
+
+                @Override
+                public boolean hasNext() {
+                    return line < itemIds.length;
+                }
+
+                @Override
+                public Item next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    var item = item(line);
+                    if (++unit == quantities[line]) {
+                        line++;
+                        unit = 0;
+                    }
+                    return item;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return itemCount;
+        }
+    }
+}
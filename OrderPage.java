@@ -0,0 +1,11 @@
+import java.util.List;
+
+// One page of a query and the cursor that fetches the page after it. Start with FIRST and keep passing
+// nextCursor back while hasMore is true.
+public record OrderPage(List<Order> orders, int nextCursor, boolean hasMore) {
+    public static final int FIRST = 0;
+
+    public OrderPage {
+        orders = List.copyOf(orders);
+    }
+}
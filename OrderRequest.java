@@ -0,0 +1,13 @@
+import java.util.List;
+
+public record OrderRequest(Customer customer, List<Item> items) {
+
+    public OrderRequest {
+        if (customer == null) {
+            throw new IllegalArgumentException("Customer cannot be null");
+        }
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Order must contain at least one item");
+        }
+    }
+}
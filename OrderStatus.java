@@ -1,9 +1,41 @@
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum OrderStatus {
     ORDER_PLACED,
     PREPARING,
     DISPATCHED,
     DELIVERED;
 
+    // Forward-only lifecycle. Staying in the same state is always allowed, so a retried update is harmless.
+    private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(Map.of(
+            ORDER_PLACED, EnumSet.of(PREPARING),
+            PREPARING, EnumSet.of(DISPATCHED),
+            DISPATCHED, EnumSet.of(DELIVERED),
+            DELIVERED, EnumSet.noneOf(OrderStatus.class)
+    ));
+
+    public boolean canTransitionTo(OrderStatus next) {
+        return next == this || TRANSITIONS.get(this).contains(next);
+    }
+
+    public Set<OrderStatus> nextStatuses() {
+        return Collections.unmodifiableSet(TRANSITIONS.get(this));
+    }
+
+    // The usual next step; a terminal status stays where it is
+    public OrderStatus next() {
+        var next = TRANSITIONS.get(this);
+        return next.isEmpty() ? this : next.iterator().next();
+    }
+
+    public boolean isTerminal() {
+        return TRANSITIONS.get(this).isEmpty();
+    }
+
     public String getDisplayMessage() {
         return switch(this) {
             case ORDER_PLACED -> "Your order has been received";
@@ -12,4 +44,4 @@ public enum OrderStatus {
             case DELIVERED -> "Your order has been delivered";
         };
     }
-}
\ No newline at end of file
+}
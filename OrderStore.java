@@ -0,0 +1,161 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+public class OrderStore {
+    private static final int LOCK_STRIPES = 64; // power of two so the id can be masked
+
+    private final ConcurrentSkipListMap<Integer, Order> byId;
+    private final Map<OrderStatus, ConcurrentSkipListMap<Integer, Order>> byStatus;
+    private final ReentrantLock[] locks;
+
+    public OrderStore() {
+        this.byId = new ConcurrentSkipListMap<>();
+        this.byStatus = new EnumMap<>(OrderStatus.class);
+        this.locks = new ReentrantLock[LOCK_STRIPES];
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, new ConcurrentSkipListMap<>());
+        }
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    // Writers to the same order serialize on its stripe; different orders rarely contend. Not a
+    // monitor: sinks are called under it, and a virtual thread blocked in one inside synchronized
+    // would pin its carrier.
+    ReentrantLock lockFor(int id) {
+        return locks[id & (LOCK_STRIPES - 1)];
+    }
+
+    // Holds the stripe locks of all the given ids at once. They are always taken in stripe order and
+    // no one else ever holds more than one, so two callers cannot deadlock.
+    void runLocked(List<Integer> ids, Runnable action) {
+        var stripes = ids.stream().mapToInt(id -> id & (LOCK_STRIPES - 1)).distinct().sorted().toArray();
+        for (int stripe : stripes) {
+            locks[stripe].lock();
+        }
+        try {
+            action.run();
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                locks[stripes[i]].unlock();
+            }
+        }
+    }
+
+    public void add(Order order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        var lock = lockFor(order.id());
+        lock.lock();
+        try {
+            if (byId.putIfAbsent(order.id(), order) != null) {
+                throw new IllegalArgumentException("Order #" + order.id() + " already exists");
+            }
+            index(order);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Swaps in a new version of an order already in the store, keeping the indexes in step
+    public Order replace(Order order) {
+        var lock = lockFor(order.id());
+        lock.lock();
+        try {
+            var previous = byId.replace(order.id(), order);
+            if (previous != null) {
+                unindex(previous);
+                index(order);
+            }
+            return previous;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Order remove(int id) {
+        var lock = lockFor(id);
+        lock.lock();
+        try {
+            var removed = byId.remove(id);
+            if (removed != null) {
+                unindex(removed);
+            }
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Order get(int id) {
+        return byId.get(id);
+    }
+
+    public boolean contains(int id) {
+        return byId.containsKey(id);
+    }
+
+    public Collection<Order> byStatus(OrderStatus status) {
+        return Collections.unmodifiableCollection(byStatus.get(status).values());
+    }
+
+    public Collection<Order> all() {
+        return Collections.unmodifiableCollection(byId.values());
+    }
+
+    public List<Order> toList() {
+        return new ArrayList<>(byId.values());
+    }
+
+    // Up to limit orders with ids after the cursor, walked straight off the index without copying the rest
+    public OrderPage page(int afterId, int limit) {
+        return page(byId, afterId, limit);
+    }
+
+    public OrderPage page(OrderStatus status, int afterId, int limit) {
+        return page(byStatus.get(status), afterId, limit);
+    }
+
+    // Lazy and weakly consistent: never throws under concurrent updates and sees each order at most once
+    public Stream<Order> stream() {
+        return byId.values().stream();
+    }
+
+    public Stream<Order> stream(OrderStatus status) {
+        return byStatus.get(status).values().stream();
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    private static OrderPage page(ConcurrentSkipListMap<Integer, Order> index, int afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        var orders = new ArrayList<Order>(Math.min(limit, 256));
+        var remaining = index.tailMap(afterId, false).values().iterator();
+        while (orders.size() < limit && remaining.hasNext()) {
+            orders.add(remaining.next());
+        }
+        int nextCursor = orders.isEmpty() ? afterId : orders.get(orders.size() - 1).id();
+        return new OrderPage(orders, nextCursor, remaining.hasNext());
+    }
+
+    private void index(Order order) {
+        byStatus.get(order.status()).put(order.id(), order);
+    }
+
+    private void unindex(Order order) {
+        byStatus.get(order.status()).remove(order.id());
+    }
+}
@@ -0,0 +1,290 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// Splits orders and agents across one DeliveryManager per zone, each with its own executor. A
+// customer's orders go to the zone nearest them, so each shard only ever contends with its own
+// traffic. Order ids are interleaved between shards, which lets any order be routed by id alone.
+// Queries that span zones are sent to every shard at once and the answers merged.
+public class ShardedDeliveryManager implements AutoCloseable {
+    private static final int FIRST_ORDER_ID = 1000;
+
+    public record Zone(String name, GeoPoint center) {
+        public Zone {
+            if (name == null || name.isBlank() || center == null) {
+                throw new IllegalArgumentException("Zone needs a name and a center");
+            }
+        }
+
+        // A zone centered on a town the shared geocoder knows
+        public static Zone of(String town) {
+            var center = Geocoder.shared().locate(town)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown town: " + town));
+            return new Zone(town, center);
+        }
+    }
+
+    private record Shard(Zone zone, DeliveryManager manager, CompletedOrderArchive archive, ExecutorService executor) {
+    }
+
+    private final List<Shard> shards;
+
+    public ShardedDeliveryManager(List<Zone> zones) {
+        this(zones, OrderEventSink.noOp(), 2);
+    }
+
+    public ShardedDeliveryManager(List<Zone> zones, OrderEventSink events, int threadsPerShard) {
+        if (zones == null || zones.isEmpty() || events == null) {
+            throw new IllegalArgumentException("Zones and event sink are required");
+        }
+        if (threadsPerShard <= 0) {
+            throw new IllegalArgumentException("Threads per shard must be positive");
+        }
+        if (zones.stream().map(Zone::name).distinct().count() != zones.size()) {
+            throw new IllegalArgumentException("Zone names must be unique");
+        }
+        this.shards = new ArrayList<>(zones.size());
+        for (int i = 0; i < zones.size(); i++) {
+            var zone = zones.get(i);
+            var archive = CompletedOrderArchive.offHeap();
+            var manager = new DeliveryManager(events, archive, new DeliveryMetrics(), FIRST_ORDER_ID + i, zones.size());
+            shards.add(new Shard(zone, manager, archive, Executors.newFixedThreadPool(threadsPerShard, daemonThreads(zone))));
+        }
+    }
+
+    public List<Zone> zones() {
+        return shards.stream().map(Shard::zone).toList();
+    }
+
+    // The manager behind one zone, for anything the sharded API does not cover
+    public DeliveryManager shard(String zoneName) {
+        return shards.stream()
+                .filter(shard -> shard.zone().name().equals(zoneName))
+                .findFirst()
+                .map(Shard::manager)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown zone: " + zoneName));
+    }
+
+    public Zone zoneFor(Customer customer) {
+        return route(customer).zone();
+    }
+
+    public Zone zoneOf(int orderId) {
+        return shardOf(orderId).zone();
+    }
+
+    // Located agents start in the nearest zone, the rest in whichever zone has the fewest agents
+    public void addAgent(DeliveryAgent agent) {
+        if (agent == null) {
+            throw new IllegalArgumentException("Agent cannot be null");
+        }
+        var shard = agent.location() != null
+                ? nearest(agent.location())
+                : shards.stream().min(Comparator.comparingInt(s -> s.manager().viewAgents().size())).orElseThrow();
+        shard.manager().addAgent(agent);
+    }
+
+    // Runs on the caller's thread
+    public Order createOrder(Customer customer, List<Item> items) {
+        return route(customer).manager().createOrder(customer, items);
+    }
+
+    // Runs on the executor of the customer's zone
+    public CompletableFuture<Order> submitOrder(Customer customer, List<Item> items) {
+        var shard = route(customer);
+        return CompletableFuture.supplyAsync(() -> shard.manager().createOrder(customer, items), shard.executor());
+    }
+
+    public Order updateStatus(Order order, OrderStatus newStatus) {
+        return shardOf(order.id()).manager().updateStatus(order, newStatus);
+    }
+
+    public Optional<DeliveryAgent> assignAgent(Order order) {
+        return shardOf(order.id()).manager().assignAgent(order);
+    }
+
+    public void completeDelivery(Order order, DeliveryAgent agent) {
+        shardOf(order.id()).manager().completeDelivery(order, agent);
+    }
+
+    public Order findActiveOrder(int id) {
+        return shardOf(id).manager().findActiveOrder(id);
+    }
+
+    public List<Order> findOrdersByStatus(OrderStatus status) {
+        return mergeById(scatter(manager -> manager.findOrdersByStatus(status)));
+    }
+
+    // Every zone is asked, since a customer who moved may have orders in more than one
+    public List<Order> findOrdersByPhone(String phone) {
+        return mergeById(scatter(manager -> manager.findOrdersByPhone(phone)));
+    }
+
+    public List<Order> orderHistory(String phone) {
+        return mergeById(scatter(manager -> manager.orderHistory(phone)));
+    }
+
+    public List<Order> filterOrders(Predicate<Order> condition) {
+        return mergeById(scatter(manager -> manager.filterOrders(condition)));
+    }
+
+    public void displayOrdersByStatus(OrderStatus status) {
+        var filteredOrders = findOrdersByStatus(status);
+
+        System.out.println("\n=== Orders with status: " + status + " (all zones) ===");
+        filteredOrders.forEach(order -> System.out.println("Zone: " + zoneOf(order.id()).name() + order));
+    }
+
+    public int activeOrderCount() {
+        return scatter(DeliveryManager::activeOrderCount).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public int completedOrderCount() {
+        return scatter(DeliveryManager::completedOrderCount).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public long completedRevenueCents() {
+        return scatter(DeliveryManager::completedRevenueCents).stream().mapToLong(Long::longValue).sum();
+    }
+
+    public int idleAgentCount() {
+        return scatter(DeliveryManager::idleAgentCount).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    // Moves agents with nothing on board from zones with more idle agents than waiting orders to
+    // zones with orders waiting and no one free, taking the donor zones nearest the receiver first
+    // and, within a zone, the agents nearest the receiver. Returns how many agents moved.
+    public synchronized int rebalanceAgents() {
+        var spare = new int[shards.size()]; // > 0: idle agents to give away, < 0: orders short of an agent
+        for (int i = 0; i < spare.length; i++) {
+            var manager = shards.get(i).manager();
+            spare[i] = manager.idleAgentCount() - manager.unassignedOrders().size();
+        }
+        int moved = 0;
+        for (int receiver = 0; receiver < spare.length; receiver++) {
+            if (spare[receiver] >= 0) {
+                continue;
+            }
+            var to = shards.get(receiver);
+            for (int donor : donorsNearest(to.zone().center(), spare)) {
+                var from = shards.get(donor);
+                var candidates = from.manager().idleAgents().stream()
+                        .filter(agent -> agent.activeOrderCount() == 0)
+                        .sorted(Comparator.comparingDouble(agent -> distanceKm(agent, to.zone().center())))
+                        .toList();
+                for (DeliveryAgent agent : candidates) {
+                    if (spare[receiver] >= 0 || spare[donor] <= 0) {
+                        break;
+                    }
+                    if (from.manager().removeAgent(agent)) { // false if it was dispatched in the meantime
+                        to.manager().addAgent(agent);
+                        spare[donor]--;
+                        spare[receiver]++;
+                        moved++;
+                    }
+                }
+                if (spare[receiver] >= 0) {
+                    break;
+                }
+            }
+        }
+        return moved;
+    }
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.executor().shutdown();
+        }
+        try {
+            for (Shard shard : shards) {
+                shard.executor().awaitTermination(10, TimeUnit.SECONDS);
+                shard.archive().close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Same customer, same zone: by location when known, otherwise by phone number, however it is written
+    private Shard route(Customer customer) {
+        if (customer == null) {
+            throw new IllegalArgumentException("Customer cannot be null");
+        }
+        return customer.location()
+                .map(this::nearest)
+                .orElseGet(() -> shards.get(Math.floorMod(CustomerRegistry.normalizePhone(customer.phone()).hashCode(),
+                        shards.size())));
+    }
+
+    private Shard shardOf(int orderId) {
+        return shards.get(Math.floorMod(orderId - FIRST_ORDER_ID, shards.size()));
+    }
+
+    private Shard nearest(GeoPoint point) {
+        return shards.stream()
+                .min(Comparator.comparingDouble(shard -> shard.zone().center().distanceKm(point)))
+                .orElseThrow();
+    }
+
+    private List<Integer> donorsNearest(GeoPoint center, int[] spare) {
+        var donors = new ArrayList<Integer>();
+        for (int i = 0; i < spare.length; i++) {
+            if (spare[i] > 0) {
+                donors.add(i);
+            }
+        }
+        donors.sort(Comparator.comparingDouble(i -> shards.get(i).zone().center().distanceKm(center)));
+        return donors;
+    }
+
+    private static double distanceKm(DeliveryAgent agent, GeoPoint point) {
+        var location = agent.location();
+        return location == null ? Double.MAX_VALUE : location.distanceKm(point);
+    }
+
+    // Runs the query on every shard's own executor in parallel and waits for all of the answers
+    private <T> List<T> scatter(Function<DeliveryManager, T> query) {
+        var futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> query.apply(shard.manager()), shard.executor()))
+                .toList();
+        try {
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause; // surface the shard's own IllegalArgumentException or IllegalStateException
+            }
+            throw e;
+        }
+    }
+
+    private static List<Order> mergeById(List<List<Order>> perShard) {
+        return perShard.stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingInt(Order::id))
+                .toList();
+    }
+
+    private static ThreadFactory daemonThreads(Zone zone) {
+        var count = new AtomicInteger();
+        return runnable -> {
+            var thread = new Thread(runnable, "shard-" + zone.name() + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
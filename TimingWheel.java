@@ -0,0 +1,202 @@
+import java.util.function.Consumer;
+
+// Hierarchical timing wheel: four levels of 64 slots each. Scheduling and cancelling are O(1),
+// and each tick touches only the slot that comes due, plus a cascade from a coarser level every
+// 64 ticks. Not thread-safe: the owner serializes access.
+public class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Timeout[][] wheels;
+    private final Timeout overflow; // deadlines beyond the top level, re-placed when the top level wraps
+    private final int[] levelSizes;
+    private long currentTick;
+    private int size;
+
+    public final class Timeout {
+        private final T payload;
+        private final long deadlineMillis;
+        private final long deadlineTick;
+        private int level;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(T payload, long deadlineMillis, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineMillis = deadlineMillis;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T payload() {
+            return payload;
+        }
+
+        public long deadlineMillis() {
+            return deadlineMillis;
+        }
+
+        public boolean isPending() {
+            return next != null;
+        }
+    }
+
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+        // Timeout is an inner class of a generic class, so the array can only be created for TimingWheel<?>;
+        // it only ever holds this wheel's timeouts
+        @SuppressWarnings("unchecked")
+        var slots = (Timeout[][]) new TimingWheel<?>.Timeout[LEVELS][SLOTS];
+        this.wheels = slots;
+        for (Timeout[] wheel : wheels) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                wheel[slot] = sentinel();
+            }
+        }
+        this.overflow = sentinel();
+        this.levelSizes = new int[LEVELS + 1];
+    }
+
+    // A deadline that has already passed fires on the next advance
+    public Timeout schedule(T payload, long deadlineMillis) {
+        long tick = Math.max(-Math.floorDiv(-deadlineMillis, tickMillis), currentTick + 1); // round up
+        var timeout = new Timeout(payload, deadlineMillis, tick);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    public boolean cancel(Timeout timeout) {
+        if (timeout == null || !timeout.isPending()) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    // Moves the wheel up to the given time and hands every timeout that came due to the consumer
+    public int advanceTo(long nowMillis, Consumer<? super T> expired) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        int fired = 0;
+        while (currentTick < targetTick) {
+            skipEmptyTicks(targetTick);
+            if (currentTick == targetTick) {
+                break;
+            }
+            currentTick++;
+            cascade();
+            var head = wheels[0][(int) (currentTick & (SLOTS - 1))];
+            while (head.next != head) {
+                var due = head.next;
+                unlink(due);
+                size--;
+                fired++;
+                expired.accept(due.payload);
+            }
+        }
+        return fired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long tickMillis() {
+        return tickMillis;
+    }
+
+    // While the finer levels are empty nothing can fire before the next coarser slot cascades,
+    // so the wheel jumps straight to the tick before it instead of stepping through empty slots
+    private void skipEmptyTicks(long targetTick) {
+        int emptyLevels = 0;
+        while (emptyLevels <= LEVELS && levelSizes[emptyLevels] == 0) {
+            emptyLevels++;
+        }
+        if (emptyLevels == 0) {
+            return;
+        }
+        if (emptyLevels > LEVELS) {
+            currentTick = targetTick; // nothing pending at all
+            return;
+        }
+        long span = 1L << (SLOT_BITS * emptyLevels);
+        long beforeCascade = currentTick | (span - 1);
+        currentTick = Math.max(currentTick, Math.min(targetTick, beforeCascade));
+    }
+
+    // Pulls the coarser slots that start at the current tick down towards level 0, top level first
+    private void cascade() {
+        int levels = 0;
+        while (levels < LEVELS - 1 && (currentTick & ((1L << (SLOT_BITS * (levels + 1))) - 1)) == 0) {
+            levels++;
+        }
+        if (levels == LEVELS - 1 && (currentTick & ((1L << (SLOT_BITS * LEVELS)) - 1)) == 0) {
+            replaceAll(overflow);
+        }
+        for (int level = levels; level >= 1; level--) {
+            replaceAll(wheels[level][digit(currentTick, level)]);
+        }
+    }
+
+    // Detaches the whole list first: an overflow deadline may still be out of range and go straight back
+    private void replaceAll(Timeout head) {
+        if (head.next == head) {
+            return;
+        }
+        var timeout = head.next;
+        head.prev.next = null;
+        head.next = head;
+        head.prev = head;
+        while (timeout != null) {
+            var next = timeout.next;
+            levelSizes[timeout.level]--;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    // The level is the lowest one above which the deadline and the current tick agree, so the
+    // deadline's slot on that level is always still ahead of the wheel's position
+    private void place(Timeout timeout) {
+        long tick = timeout.deadlineTick;
+        int level = 0;
+        while (level < LEVELS && tick >>> (SLOT_BITS * (level + 1)) != currentTick >>> (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        timeout.level = level;
+        levelSizes[level]++;
+        link(level == LEVELS ? overflow : wheels[level][digit(tick, level)], timeout);
+    }
+
+    private static int digit(long tick, int level) {
+        return (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+    }
+
+    private Timeout sentinel() {
+        var head = new Timeout(null, 0, 0);
+        head.prev = head;
+        head.next = head;
+        return head;
+    }
+
+    private void link(Timeout head, Timeout timeout) {
+        timeout.prev = head.prev;
+        timeout.next = head;
+        head.prev.next = timeout;
+        head.prev = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        levelSizes[timeout.level]--;
+        timeout.prev.next = timeout.next;
+        timeout.next.prev = timeout.prev;
+        timeout.prev = null;
+        timeout.next = null;
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Space-Saving heavy-hitters sketch: tracks at most `capacity` items, so memory stays fixed however
+// many distinct items are sold. An item that took over an evicted slot may be over-counted by at most
+// the count it inherited. The counters form a min-heap in which each one knows its own slot, and
+// counts only ever grow, so every add is a single O(log capacity) sift down.
+public class TopItemsSketch {
+    private final int capacity;
+    private final Map<Integer, Counter> counters;
+    private final Counter[] heap; // smallest count at 0
+
+    public record ItemCount(Item item, long count) {
+    }
+
+    private static final class Counter {
+        private final int itemId;
+        private long count;
+        private int slot;
+
+        private Counter(int itemId, long count, int slot) {
+            this.itemId = itemId;
+            this.count = count;
+            this.slot = slot;
+        }
+    }
+
+    public TopItemsSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>();
+        this.heap = new Counter[capacity];
+    }
+
+    public synchronized void add(int itemId, long quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        var counter = counters.get(itemId);
+        if (counter != null) {
+            counter.count += quantity;
+            siftDown(counter);
+        } else if (counters.size() < capacity) {
+            int slot = counters.size();
+            counter = new Counter(itemId, quantity, slot);
+            counters.put(itemId, counter);
+            heap[slot] = counter;
+            siftUp(counter);
+        } else {
+            // Evict the smallest counter; the newcomer inherits its count and its slot
+            var evicted = heap[0];
+            counters.remove(evicted.itemId);
+            counter = new Counter(itemId, evicted.count + quantity, 0);
+            counters.put(itemId, counter);
+            heap[0] = counter;
+            siftDown(counter);
+        }
+    }
+
+    public synchronized List<ItemCount> top(int n) {
+        var sorted = new ArrayList<>(counters.values());
+        sorted.sort(Comparator.comparingLong((Counter counter) -> counter.count).reversed());
+        var catalog = ItemCatalog.shared();
+        var results = new ArrayList<ItemCount>(Math.min(n, sorted.size()));
+        for (int i = 0; i < sorted.size() && i < n; i++) {
+            results.add(new ItemCount(catalog.item(sorted.get(i).itemId), sorted.get(i).count));
+        }
+        return results;
+    }
+
+    private void siftUp(Counter counter) {
+        int slot = counter.slot;
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], slot);
+            slot = parent;
+        }
+        place(counter, slot);
+    }
+
+    private void siftDown(Counter counter) {
+        int size = counters.size();
+        int slot = counter.slot;
+        while (true) {
+            int child = 2 * slot + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], slot);
+            slot = child;
+        }
+        place(counter, slot);
+    }
+
+    private void place(Counter counter, int slot) {
+        heap[slot] = counter;
+        counter.slot = slot;
+    }
+}